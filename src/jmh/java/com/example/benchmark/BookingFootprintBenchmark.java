@@ -0,0 +1,77 @@
+package com.example.benchmark;
+
+import com.example.Booking;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.ref.Reference;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mäter kvarhållet minne per bokning för den kompakta {@link Booking} jämfört med den tidigare
+ * layouten (id-sträng och två LocalDateTime). Resultatet rapporteras som hjälpräknaren bytesPerBooking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BookingFootprintBenchmark {
+    static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    static final int BOOKINGS = 200_000;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerBooking;
+    }
+
+    @Benchmark
+    public void compactBooking(Footprint footprint) {
+        Object[] bookings = new Object[BOOKINGS];
+        long before = usedHeapAfterGc();
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDateTime start = BASE.plusMinutes(30L * i);
+            bookings[i] = new Booking(UUID.randomUUID().toString(), "room", start, start.plusMinutes(25));
+        }
+        footprint.bytesPerBooking = (usedHeapAfterGc() - before) / BOOKINGS;
+        Reference.reachabilityFence(bookings);
+    }
+
+    @Benchmark
+    public void legacyBooking(Footprint footprint) {
+        Object[] bookings = new Object[BOOKINGS];
+        long before = usedHeapAfterGc();
+        for (int i = 0; i < BOOKINGS; i++) {
+            LocalDateTime start = BASE.plusMinutes(30L * i);
+            bookings[i] = new LegacyBooking(UUID.randomUUID().toString(), "room", start, start.plusMinutes(25));
+        }
+        footprint.bytesPerBooking = (usedHeapAfterGc() - before) / BOOKINGS;
+        Reference.reachabilityFence(bookings);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** Bokningens layout före den kompakta representationen. */
+    static final class LegacyBooking {
+        final String id;
+        final String roomId;
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+
+        LegacyBooking(String id, String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+            this.id = id;
+            this.roomId = roomId;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+    }
+}
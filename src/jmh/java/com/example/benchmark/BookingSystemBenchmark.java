@@ -0,0 +1,100 @@
+package com.example.benchmark;
+
+import com.example.AvailableSlot;
+import com.example.Booking;
+import com.example.BookingSystem;
+import com.example.InMemoryRoomRepository;
+import com.example.NotificationService;
+import com.example.Room;
+import com.example.metrics.Metrics;
+import com.example.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingSystemBenchmark {
+    static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"100", "1000"})
+    int rooms;
+
+    @Param({"10", "1000"})
+    int bookingsPerRoom;
+
+    // Mäter vad instrumenteringen kostar jämfört med avstängda mätvärden
+    @Param({"false", "true"})
+    boolean metrics;
+
+    InMemoryRoomRepository repository;
+    BookingSystem bookingSystem;
+    Booking[] bookings;
+
+    @Setup
+    public void setUp() {
+        repository = new InMemoryRoomRepository();
+        bookings = new Booking[rooms * bookingsPerRoom];
+        for (int r = 0; r < rooms; r++) {
+            Room room = new Room("room" + r, "Rum " + r);
+            for (int b = 0; b < bookingsPerRoom; b++) {
+                LocalDateTime start = NOW.plusHours(2L * b + 1);
+                Booking booking = new Booking("room" + r + "-" + b, room.getId(), start, start.plusMinutes(90));
+                room.addBooking(booking);
+                bookings[r * bookingsPerRoom + b] = booking;
+            }
+            repository.save(room);
+        }
+        bookingSystem = new BookingSystem(() -> NOW, repository, new NoopNotificationService(),
+                metrics ? new MetricsRegistry() : Metrics.NOOP);
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRooms() {
+        LocalDateTime start = NOW.plusHours(ThreadLocalRandom.current().nextInt(2 * bookingsPerRoom)).plusMinutes(95);
+        return bookingSystem.getAvailableRooms(start, start.plusMinutes(20));
+    }
+
+    /** Söker bara tills tio lediga rum hittats. */
+    @Benchmark
+    public List<Room> getFirstTenAvailableRooms() {
+        LocalDateTime start = NOW.plusHours(ThreadLocalRandom.current().nextInt(2 * bookingsPerRoom)).plusMinutes(95);
+        return bookingSystem.getAvailableRooms(start, start.plusMinutes(20), null, 10);
+    }
+
+    /** Fem förslag på ett 20-minutersfönster i stället för upprepade misslyckade bokningsförsök. */
+    @Benchmark
+    public List<AvailableSlot> findNextAvailable() {
+        LocalDateTime start = NOW.plusHours(ThreadLocalRandom.current().nextInt(2 * bookingsPerRoom));
+        return bookingSystem.findNextAvailable(Duration.ofMinutes(20), start, start.plusDays(1), null, 5);
+    }
+
+    /** Avbokar en slumpvis bokning och lägger tillbaka den så att kalendern behåller sin storlek. */
+    @Benchmark
+    public boolean cancelBooking() {
+        Booking booking = bookings[ThreadLocalRandom.current().nextInt(bookings.length)];
+        boolean cancelled = bookingSystem.cancelBooking(booking.getId());
+        Room room = repository.findById(booking.getRoomId()).orElseThrow();
+        room.addBooking(booking);
+        repository.save(room);
+        return cancelled;
+    }
+
+    static final class NoopNotificationService implements NotificationService {
+        @Override
+        public void sendBookingConfirmation(Booking booking) {
+        }
+
+        @Override
+        public void sendCancellationConfirmation(Booking booking) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.benchmark;
+
+import com.example.ConcurrentShoppingCart;
+import com.example.Item;
+import com.example.ShoppingCart;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared-cart throughput under contention. Compare scaling with {@code -t 1}, {@code -t 4} and
+ * {@code -t max} against a plain ShoppingCart behind a single lock.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class ConcurrentShoppingCartBenchmark {
+    @Param({"16", "1024"})
+    int distinctItems;
+
+    ConcurrentShoppingCart concurrentCart;
+    ShoppingCart lockedCart;
+    Item[] items;
+
+    @Setup
+    public void setUp() {
+        concurrentCart = new ConcurrentShoppingCart();
+        lockedCart = new ShoppingCart();
+        items = new Item[distinctItems];
+        for (int i = 0; i < distinctItems; i++) {
+            items[i] = new Item("item" + i, 9.95);
+            concurrentCart.addItem(items[i]);
+            lockedCart.addItem(items[i]);
+        }
+    }
+
+    @Benchmark
+    public int concurrentCart() {
+        Item item = items[ThreadLocalRandom.current().nextInt(distinctItems)];
+        concurrentCart.addItem(item);
+        concurrentCart.removeItem(item);
+        return concurrentCart.getItemQuantity(item);
+    }
+
+    @Benchmark
+    public int lockedCart() {
+        Item item = items[ThreadLocalRandom.current().nextInt(distinctItems)];
+        synchronized (lockedCart) {
+            lockedCart.addItem(item);
+            lockedCart.removeItem(item);
+            return lockedCart.getItemQuantity(item);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.benchmark;
+
+import com.example.payment.PaymentApiResponse;
+import com.example.payment.PaymentProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentProcessorBenchmark {
+    static final PaymentApiResponse SUCCESS = new PaymentApiResponse(true);
+    // Ungefärlig svarstid för ett anrop till betalnings-API:t
+    static final long CHARGE_LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    static final List<Double> SETTLEMENT = Collections.nCopies(1000, 100.0);
+
+    PaymentProcessor processor;
+    PaymentProcessor remoteProcessor;
+
+    @Setup
+    public void setUp() {
+        processor = new PaymentProcessor(
+                (apiKey, amount) -> SUCCESS,
+                (amount, status) -> { },
+                (email, amount) -> { },
+                "benchmark_api_key");
+        remoteProcessor = new PaymentProcessor(
+                (apiKey, amount) -> {
+                    LockSupport.parkNanos(CHARGE_LATENCY_NANOS);
+                    return SUCCESS;
+                },
+                (amount, status) -> { },
+                (email, amount) -> { },
+                "benchmark_api_key");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean processPayment() {
+        return processor.processPayment(100.0);
+    }
+
+    /** Ett upprepat anrop med samma idempotensnyckel besvaras från minnet utan ny debitering. */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean retryPayment() {
+        return remoteProcessor.processPayment("order-1", 100.0);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int settleOneByOne() {
+        int succeeded = 0;
+        for (double amount : SETTLEMENT) {
+            if (remoteProcessor.processPayment(amount)) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public List<Boolean> settleBatched() throws InterruptedException {
+        return remoteProcessor.processPayments(SETTLEMENT);
+    }
+}
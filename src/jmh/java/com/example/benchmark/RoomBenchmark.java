@@ -0,0 +1,59 @@
+package com.example.benchmark;
+
+import com.example.Booking;
+import com.example.RecurringBooking;
+import com.example.Room;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomBenchmark {
+    static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"100", "10000", "100000"})
+    int bookings;
+
+    Room room;
+    // Samma kalender som en enda återkommande bokning i stället för en bokning per tillfälle
+    Room recurringRoom;
+
+    @Setup
+    public void setUp() {
+        room = new Room("room", "Rum");
+        for (int i = 0; i < bookings; i++) {
+            LocalDateTime start = BASE.plusHours(2L * i);
+            room.addBooking(new Booking("b" + i, "room", start, start.plusMinutes(90)));
+        }
+        recurringRoom = new Room("recurring", "Rum");
+        recurringRoom.addRecurringBooking(new RecurringBooking("series", "recurring", BASE, BASE.plusMinutes(90),
+                Duration.ofHours(2), BASE.plusHours(2L * (bookings - 1))));
+    }
+
+    @Benchmark
+    public boolean isAvailable() {
+        LocalDateTime start = BASE.plusHours(ThreadLocalRandom.current().nextInt(2 * bookings)).plusMinutes(95);
+        return room.isAvailable(start, start.plusMinutes(20));
+    }
+
+    @Benchmark
+    public boolean isAvailableRecurring() {
+        LocalDateTime start = BASE.plusHours(ThreadLocalRandom.current().nextInt(2 * bookings)).plusMinutes(95);
+        return recurringRoom.isAvailable(start, start.plusMinutes(20));
+    }
+
+    /** En veckovy, högst 84 träffar: kostnaden ska följa antalet träffar, inte kalenderns storlek. */
+    @Benchmark
+    public long getBookingsForWeek() {
+        LocalDateTime from = BASE.plusHours(ThreadLocalRandom.current().nextInt(2 * bookings));
+        return room.getBookings(from, from.plusWeeks(1)).count();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.benchmark;
+
+import com.example.Item;
+import com.example.ShoppingCart;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run with {@code -prof gc} to see allocation per operation; the add/update/remove path is
+ * expected to report close to 0 B/op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoppingCartBenchmark {
+    @Param({"10", "1000", "10000"})
+    int lines;
+
+    ShoppingCart cart;
+    Item[] items;
+
+    @Setup
+    public void setUp() {
+        cart = new ShoppingCart();
+        items = new Item[lines];
+        for (int i = 0; i < lines; i++) {
+            items[i] = new Item("item" + i, 1 + i % 500 + 0.95);
+            cart.addItem(items[i]);
+        }
+    }
+
+    /** Lägger till och tar bort samma rad så att varukorgen behåller sin storlek. */
+    @Benchmark
+    public int addItem() {
+        Item item = items[ThreadLocalRandom.current().nextInt(lines)];
+        cart.addItem(item);
+        cart.removeItem(item);
+        return cart.getItemQuantity(item);
+    }
+
+    @Benchmark
+    public int addUpdateRemove() {
+        Item item = items[ThreadLocalRandom.current().nextInt(lines)];
+        cart.addItem(item);
+        cart.updateQuantity(item, 3);
+        cart.removeItem(item);
+        cart.updateQuantity(item, 1);
+        return cart.getItemQuantity(item);
+    }
+
+    @Benchmark
+    public double calculateTotalPrice() {
+        return cart.calculateTotalPrice();
+    }
+}
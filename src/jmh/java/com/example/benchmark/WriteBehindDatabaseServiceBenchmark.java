@@ -0,0 +1,62 @@
+package com.example.benchmark;
+
+import com.example.payment.DatabaseService;
+import com.example.payment.PaymentRecord;
+import com.example.payment.WriteBehindDatabaseService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sparade betalningar per millisekund mot en databas där varje anrop kostar en rundresa,
+ * oavsett om det sparar en betalning eller en hel batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class WriteBehindDatabaseServiceBenchmark {
+    static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    DatabaseService database;
+    WriteBehindDatabaseService writeBehind;
+
+    @Setup
+    public void setUp() {
+        database = new RoundTripDatabase();
+        writeBehind = new WriteBehindDatabaseService(database);
+    }
+
+    @TearDown
+    public void tearDown() {
+        writeBehind.close();
+    }
+
+    @Benchmark
+    public void savePaymentDirect() {
+        database.savePayment(100.0, "SUCCESS");
+    }
+
+    @Benchmark
+    public void savePaymentWriteBehind() {
+        writeBehind.savePaymentAsync(100.0, "SUCCESS");
+    }
+
+    static final class RoundTripDatabase implements DatabaseService {
+        @Override
+        public void savePayment(double amount, String status) {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+        }
+
+        @Override
+        public void savePayments(List<PaymentRecord> payments) {
+            LockSupport.parkNanos(ROUND_TRIP_NANOS);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Lägger notifieringar i en begränsad kö och skickar dem från en virtuell tråd, så att
+ * bokning och avbokning inte väntar på mejl- eller SMS-gatewayen. Notifieringar som
+ * hunnit samlas i kön skickas som en batch om delegaten är en {@link BatchNotificationService}.
+ *
+ * <p>Ett misslyckat utskick läggs i en egen väntelista med en tidpunkt för nästa försök, så
+ * dispatchern skickar vidare det som står i kön under tiden. Väntelistan rymmer lika många
+ * notifieringar som kön; blir den full räknas nya misslyckanden som slutgiltiga.
+ */
+public final class AsyncNotificationService implements NotificationService, AutoCloseable {
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final NotificationService delegate;
+    private final BlockingQueue<Notification> queue;
+    private final int capacity;
+    private final int maxBatchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration enqueueTimeout;
+    private final Thread dispatcher;
+    // Köandet håller läslåset och stängningen skrivlåset, så ingen notifiering tas emot efter stängning
+    private final ReentrantReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+    // Utskick som väntar på nästa försök, det som ska göras först överst. Rörs bara av dispatchern.
+    private final PriorityQueue<Retry> retryQueue = new PriorityQueue<>(Comparator.comparingLong(retry -> retry.dueNanos));
+    private int retrying;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AsyncNotificationService(NotificationService delegate) {
+        this(delegate, 10_000, 100, 5, Duration.ofMillis(100), Duration.ZERO);
+    }
+
+    public AsyncNotificationService(NotificationService delegate, int capacity, int maxBatchSize,
+                                    int maxAttempts, Duration initialBackoff, Duration enqueueTimeout) {
+        if (capacity <= 0 || maxBatchSize <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("Kapacitet, batchstorlek och antal försök måste vara positiva");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.maxBatchSize = maxBatchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.enqueueTimeout = enqueueTimeout;
+        this.dispatcher = Thread.ofVirtual().name("notification-dispatcher").start(this::dispatchLoop);
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        enqueue(new Notification(Notification.Type.BOOKING_CONFIRMATION, booking));
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        enqueue(new Notification(Notification.Type.CANCELLATION_CONFIRMATION, booking));
+    }
+
+    /** Antal notifieringar som väntar på att skickas. */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSentCount() {
+        return sent.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /** Notifieringar som gav upp efter alla försök. */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /** Notifieringar som avvisades för att kön var full. */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Slutar ta emot nya notifieringar och väntar tills kön är tömd och alla nya försök gjorts.
+     * Väntar klart även om anroparen avbryts, och återställer i så fall avbrottsflaggan.
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                dispatcher.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Notification notification) throws NotificationException {
+        boolean accepted;
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new NotificationException("Notifieringstjänsten är stängd");
+            }
+            accepted = queue.offer(notification, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        if (!accepted) {
+            rejected.increment();
+            throw new NotificationException("Notifieringskön är full");
+        }
+    }
+
+    private void dispatchLoop() {
+        List<Notification> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            retryDue();
+            long waitNanos = POLL_NANOS;
+            Retry next = retryQueue.peek();
+            if (next != null) {
+                waitNanos = Math.max(0, Math.min(waitNanos, next.dueNanos - System.nanoTime()));
+            }
+            Notification first;
+            try {
+                first = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty() && retryQueue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatchSize - 1);
+            dispatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void dispatch(List<Notification> batch) {
+        if (delegate instanceof BatchNotificationService) {
+            attempt(List.copyOf(batch), 1, initialBackoff.toNanos());
+        } else {
+            for (Notification notification : batch) {
+                attempt(List.of(notification), 1, initialBackoff.toNanos());
+            }
+        }
+        batches.increment();
+    }
+
+    /** Gör de nya försök som hunnit bli aktuella. */
+    private void retryDue() {
+        Retry retry;
+        while ((retry = retryQueue.peek()) != null && retry.dueNanos - System.nanoTime() <= 0) {
+            retryQueue.poll();
+            retrying -= retry.notifications.size();
+            attempt(retry.notifications, retry.attempt, retry.backoffNanos);
+        }
+    }
+
+    /** Skickar en gång; misslyckas det läggs utskicket i väntelistan om försök och plats finns kvar. */
+    private void attempt(List<Notification> notifications, int attempt, long backoffNanos) {
+        try {
+            send(notifications);
+            sent.add(notifications.size());
+        } catch (NotificationException e) {
+            if (attempt >= maxAttempts || retrying + notifications.size() > capacity) {
+                failed.add(notifications.size());
+                return;
+            }
+            retries.increment();
+            retrying += notifications.size();
+            retryQueue.add(new Retry(notifications, attempt + 1, System.nanoTime() + backoffNanos, backoffNanos * 2));
+        } catch (RuntimeException e) {
+            // Ett programfel hos delegaten blir inte bättre av nya försök och får inte stoppa dispatchern
+            failed.add(notifications.size());
+        }
+    }
+
+    private void send(List<Notification> notifications) throws NotificationException {
+        if (delegate instanceof BatchNotificationService batchService) {
+            batchService.sendBatch(notifications);
+            return;
+        }
+        Notification notification = notifications.get(0);
+        switch (notification.getType()) {
+            case BOOKING_CONFIRMATION -> delegate.sendBookingConfirmation(notification.getBooking());
+            case CANCELLATION_CONFIRMATION -> delegate.sendCancellationConfirmation(notification.getBooking());
+        }
+    }
+
+    private static final class Retry {
+        final List<Notification> notifications;
+        final int attempt;
+        final long dueNanos;
+        final long backoffNanos;
+
+        Retry(List<Notification> notifications, int attempt, long dueNanos, long backoffNanos) {
+            this.notifications = notifications;
+            this.attempt = attempt;
+            this.dueNanos = dueNanos;
+            this.backoffNanos = backoffNanos;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/** Ett ledigt tidsfönster i ett rum, föreslaget av {@link BookingSystem#findNextAvailable}. */
+public class AvailableSlot {
+    private final String roomId;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+
+    public AvailableSlot(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        this.roomId = roomId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AvailableSlot other)) {
+            return false;
+        }
+        return Objects.equals(roomId, other.roomId)
+                && Objects.equals(startTime, other.startTime)
+                && Objects.equals(endTime, other.endTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(roomId, startTime, endTime);
+    }
+
+    @Override
+    public String toString() {
+        return roomId + " " + startTime + "–" + endTime;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example;
+
+import java.util.List;
+
+/** NotificationService som kan skicka flera notifieringar i ett anrop mot gatewayen. */
+public interface BatchNotificationService extends NotificationService {
+    void sendBatch(List<Notification> notifications) throws NotificationException;
+}
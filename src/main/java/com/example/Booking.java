@@ -1,26 +1,51 @@
 package com.example;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
 
+/**
+ * En bokning lagrad kompakt: start- och sluttid som nanosekunder sedan 1970-01-01T00:00
+ * (lokal tid, utan tidszon) och ett UUID-id som två long. Id som inte är UUID sparas som
+ * sträng. {@link LocalDateTime} och id-strängen skapas först när de efterfrågas.
+ */
 public class Booking {
-    private final String id;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
     private final String roomId;
-    private final LocalDateTime startTime;
-    private final LocalDateTime endTime;
+    private final long startNanos;
+    private final long endNanos;
+    private final long idHigh;
+    private final long idLow;
+    private final String idText;
 
     public Booking(String id, String roomId, LocalDateTime startTime, LocalDateTime endTime) {
-        this.id = id;
+        this(id, roomId, exactEpochNanos(startTime), exactEpochNanos(endTime));
+    }
+
+    Booking(String id, String roomId, long startNanos, long endNanos) {
+        if (id == null) {
+            throw new IllegalArgumentException("Boknings-id kan inte vara null");
+        }
+        UUID uuid = parseUuid(id);
         this.roomId = roomId;
-        this.startTime = startTime;
-        this.endTime = endTime;
+        this.startNanos = startNanos;
+        this.endNanos = endNanos;
+        this.idHigh = uuid == null ? 0 : uuid.getMostSignificantBits();
+        this.idLow = uuid == null ? 0 : uuid.getLeastSignificantBits();
+        this.idText = uuid == null ? id : null;
     }
 
     public boolean overlaps(LocalDateTime start, LocalDateTime end) {
-        return !endTime.isBefore(start) && !startTime.isAfter(end);
+        return overlaps(toEpochNanos(start), toEpochNanos(end));
+    }
+
+    boolean overlaps(long start, long end) {
+        return endNanos >= start && startNanos <= end;
     }
 
     public String getId() {
-        return id;
+        return idText != null ? idText : new UUID(idHigh, idLow).toString();
     }
 
     public String getRoomId() {
@@ -28,10 +53,80 @@ public class Booking {
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return toLocalDateTime(startNanos);
     }
 
     public LocalDateTime getEndTime() {
-        return endTime;
+        return toLocalDateTime(endNanos);
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    long endNanos() {
+        return endNanos;
+    }
+
+    /** Nyckel för uppslag på id utan att id-strängen behöver finnas kvar i minnet. */
+    Object idKey() {
+        return idText != null ? idText : new UUID(idHigh, idLow);
+    }
+
+    static Object idKey(String id) {
+        UUID uuid = id == null ? null : parseUuid(id);
+        return uuid != null ? uuid : id;
+    }
+
+    /** Total ordning på id: UUID-id före övriga, UUID sinsemellan på bitarna, övriga som strängar. */
+    int compareId(Booking other) {
+        if (idText == null && other.idText == null) {
+            int cmp = Long.compare(idHigh, other.idHigh);
+            return cmp != 0 ? cmp : Long.compare(idLow, other.idLow);
+        }
+        if (idText == null) {
+            return -1;
+        }
+        if (other.idText == null) {
+            return 1;
+        }
+        return idText.compareTo(other.idText);
+    }
+
+    /** Tidpunkten som nanosekunder sedan epoken, mättad vid long-intervallets gränser. */
+    static long toEpochNanos(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        if (seconds >= Long.MAX_VALUE / NANOS_PER_SECOND) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= Long.MIN_VALUE / NANOS_PER_SECOND) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * NANOS_PER_SECOND + time.getNano();
+    }
+
+    static LocalDateTime toLocalDateTime(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC);
+    }
+
+    private static long exactEpochNanos(LocalDateTime time) {
+        long nanos = toEpochNanos(time);
+        if (nanos == Long.MAX_VALUE || nanos == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Bokningstid utanför giltigt intervall");
+        }
+        return nanos;
+    }
+
+    private static UUID parseUuid(String id) {
+        if (id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 }
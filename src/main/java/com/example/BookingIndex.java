@@ -0,0 +1,139 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Sekundärindex från boknings-id till rum-id som hålls aktuellt vid varje sparning av ett rum.
+ * Första gången en rumsinstans sparas indexeras alla dess bokningar; därefter bara de som
+ * ändrats sedan den version av rummet som indexet senast läste. Versionen hålls här och inte i
+ * rummet, så samma rumsinstans kan sparas i flera repositoryn utan att deras index påverkar
+ * varandra. Uppdateringar serialiseras per rum, så olika rum kan sparas parallellt.
+ *
+ * <p>Indexet nycklas på {@link Booking#idKey()}, så UUID-id hålls som två long och inte som
+ * strängar. Vilka bokningar ett rum har indexerat läses ur rummet självt när det behövs.
+ */
+final class BookingIndex {
+    private final Map<Object, String> roomIdByBookingKey = new ConcurrentHashMap<>();
+    private final Map<String, Indexed> indexedRooms = new ConcurrentHashMap<>();
+
+    Optional<String> findRoomId(String bookingId) {
+        return Optional.ofNullable(roomIdByBookingKey.get(Booking.idKey(bookingId)));
+    }
+
+    /** Uppdaterar indexet för rummet med det som ändrats sedan förra uppdateringen. */
+    void update(Room room) {
+        update(room, delta -> { });
+    }
+
+    /**
+     * Som {@link #update(Room)}, men lämnar först ändringarna till {@code persist}. Kastar den
+     * lämnas indexet orört, så ändringarna kommer med nästa gång.
+     */
+    void update(Room room, Consumer<Delta> persist) {
+        indexedRooms.compute(room.getId(), (roomId, indexed) -> {
+            Delta delta = room.changesSince(indexed != null && indexed.room == room ? indexed.version : -1);
+            if (delta.complete && indexed != null) {
+                delta = withRemovedKeys(delta, indexedKeys(roomId, indexed));
+            }
+            persist.accept(delta);
+            for (Object key : delta.removed) {
+                roomIdByBookingKey.remove(key, roomId);
+            }
+            for (Booking booking : delta.added) {
+                roomIdByBookingKey.put(booking.idKey(), roomId);
+            }
+            return new Indexed(room, delta.version);
+        });
+    }
+
+    /** Glömmer rummet och alla dess bokningar. */
+    void remove(String roomId) {
+        indexedRooms.computeIfPresent(roomId, (id, indexed) -> {
+            for (Object key : indexedKeys(roomId, indexed)) {
+                roomIdByBookingKey.remove(key, roomId);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Nycklarna som är indexerade för rummet, eller fler: rumsinstansens bokningar nu plus de som
+     * tagits bort sedan den indexerades. Tillagda som inte indexerats än kommer med men är ofarliga
+     * att ta bort. Räcker rummets journal inte tillbaka letas rummets nycklar upp i hela indexet.
+     */
+    private Collection<Object> indexedKeys(String roomId, Indexed indexed) {
+        Collection<Booking> current = indexed.room.getBookings();
+        Delta since = indexed.room.changesSince(indexed.version);
+        if (since.complete) {
+            List<Object> keys = new ArrayList<>();
+            roomIdByBookingKey.forEach((key, indexedRoomId) -> {
+                if (indexedRoomId.equals(roomId)) {
+                    keys.add(key);
+                }
+            });
+            return keys;
+        }
+        List<Object> keys = new ArrayList<>(current.size() + since.removed.size());
+        for (Booking booking : current) {
+            keys.add(booking.idKey());
+        }
+        keys.addAll(since.removed);
+        return keys;
+    }
+
+    /** Det fullständiga {@code delta} kompletterat med de indexerade nycklar som rummet inte längre har. */
+    private static Delta withRemovedKeys(Delta delta, Collection<Object> indexedKeys) {
+        Set<Object> current = new HashSet<>();
+        for (Booking booking : delta.added) {
+            current.add(booking.idKey());
+        }
+        List<Object> removed = new ArrayList<>();
+        for (Object key : indexedKeys) {
+            if (!current.contains(key)) {
+                removed.add(key);
+            }
+        }
+        return new Delta(delta.version, true, delta.added, removed);
+    }
+
+    /** Rumsinstansen som senast indexerades och vilken av dess versioner indexet motsvarar. */
+    private static final class Indexed {
+        final Room room;
+        final long version;
+
+        Indexed(Room room, long version) {
+            this.room = room;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Ändringarna i ett rum fram till {@code version}: tillagda bokningar och id-nycklarna för
+     * borttagna. Är {@code complete} satt innehåller {@code added} alla rummets bokningar.
+     */
+    static final class Delta {
+        final long version;
+        final boolean complete;
+        final List<Booking> added;
+        final List<Object> removed;
+
+        Delta(long version, boolean complete, List<Booking> added, List<Object> removed) {
+            this.version = version;
+            this.complete = complete;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        static Delta complete(long version, List<Booking> bookings) {
+            return new Delta(version, true, bookings, List.of());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example;
+
+/** Utfallet för en enskild förfrågan i {@link BookingSystem#bookRooms}. */
+public class BookingResult {
+    public enum Status {
+        BOOKED,
+        UNAVAILABLE,
+        INVALID
+    }
+
+    private final BookingRequest request;
+    private final Status status;
+    private final Booking booking;
+    private final String message;
+
+    private BookingResult(BookingRequest request, Status status, Booking booking, String message) {
+        this.request = request;
+        this.status = status;
+        this.booking = booking;
+        this.message = message;
+    }
+
+    static BookingResult booked(BookingRequest request, Booking booking) {
+        return new BookingResult(request, Status.BOOKED, booking, null);
+    }
+
+    static BookingResult unavailable(BookingRequest request) {
+        return new BookingResult(request, Status.UNAVAILABLE, null, "Rummet är redan bokat under tiden");
+    }
+
+    static BookingResult invalid(BookingRequest request, String message) {
+        return new BookingResult(request, Status.INVALID, null, message);
+    }
+
+    public BookingRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    /** Den skapade bokningen, eller null om förfrågan inte bokades. */
+    public Booking getBooking() {
+        return booking;
+    }
+
+    /** Orsaken till att förfrågan inte bokades, eller null om den bokades. */
+    public String getMessage() {
+        return message;
+    }
+}
@@ -1,56 +1,245 @@
 package com.example;
 
+import com.example.metrics.Counter;
+import com.example.metrics.Metrics;
+import com.example.metrics.Timer;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 public class BookingSystem {
+    private static final int LOCK_STRIPES = 64;
+    // Vid sökning över alla rum tidsmäts bara var 64:e kontroll så att mätningen inte dominerar.
+    // De hamnar i en egen timer, så antalet i room.isAvailable är fortfarande exakt.
+    private static final int SCAN_SAMPLE_RATE = 64;
+    // Under så här många rum lönar det sig inte att söka parallellt
+    private static final int PARALLEL_SEARCH_THRESHOLD = 2_048;
+    private static final int SEARCH_LEAF_SIZE = 256;
+    // Föreslagna fönster börjar på hela minuter om inget annat anges
+    private static final Duration DEFAULT_SLOT_GRANULARITY = Duration.ofMinutes(1);
+
     private final TimeProvider timeProvider;
     private final RoomRepository roomRepository;
     private final NotificationService notificationService;
+    // Bokningar och avbokningar serialiseras per rum så att olika rum kan bokas parallellt
+    private final ReentrantLock[] roomLocks = new ReentrantLock[LOCK_STRIPES];
+    // Rummens beläggning per tidslucka, så att getAvailableRooms sällan behöver söka bland bokningarna
+    private final OccupancyIndex occupancy;
+
+    private final Timer bookTimer;
+    private final Timer cancelTimer;
+    private final Timer availableRoomsTimer;
+    private final Timer roomAvailabilityTimer;
+    private final Timer sampledScanTimer;
+    private final Counter booked;
+    private final Counter rejected;
+    private final Counter cancelled;
+    private final Counter notificationFailures;
 
     public BookingSystem(TimeProvider timeProvider,
                          RoomRepository roomRepository,
                          NotificationService notificationService) {
+        this(timeProvider, roomRepository, notificationService, Metrics.NOOP);
+    }
+
+    public BookingSystem(TimeProvider timeProvider,
+                         RoomRepository roomRepository,
+                         NotificationService notificationService,
+                         Metrics metrics) {
+        this(timeProvider, roomRepository, notificationService, metrics, OccupancyIndex.DEFAULT_SLOT);
+    }
+
+    /**
+     * @param occupancySlot tidsluckan i beläggningsindexet som {@link #getAvailableRooms} svarar ur;
+     *                      måste gå jämnt upp i ett dygn
+     */
+    public BookingSystem(TimeProvider timeProvider,
+                         RoomRepository roomRepository,
+                         NotificationService notificationService,
+                         Metrics metrics,
+                         Duration occupancySlot) {
+        this.occupancy = new OccupancyIndex(occupancySlot);
         this.timeProvider = timeProvider;
         this.roomRepository = roomRepository;
         this.notificationService = notificationService;
+        for (int i = 0; i < roomLocks.length; i++) {
+            roomLocks[i] = new ReentrantLock();
+        }
+        this.bookTimer = metrics.timer("booking.book");
+        this.cancelTimer = metrics.timer("booking.cancel");
+        this.availableRoomsTimer = metrics.timer("booking.availableRooms");
+        this.roomAvailabilityTimer = metrics.timer("room.isAvailable");
+        this.sampledScanTimer = metrics.timer("room.isAvailable.sampled");
+        this.booked = metrics.counter("booking.booked");
+        this.rejected = metrics.counter("booking.rejected");
+        this.cancelled = metrics.counter("booking.cancelled");
+        this.notificationFailures = metrics.counter("booking.notificationFailures");
     }
 
     public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        long start = bookTimer.start();
+        try {
+            boolean success = book(roomId, startTime, endTime);
+            (success ? booked : rejected).increment();
+            return success;
+        } finally {
+            bookTimer.stop(start);
+        }
+    }
+
+    private boolean book(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
         if (startTime == null || endTime == null || roomId == null) {
             throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
         }
 
-        if (startTime.isBefore(timeProvider.getCurrentTime())) {
-            throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+        LocalDateTime now = timeProvider.getCurrentTime();
+        String error = validateBooking(startTime, endTime, now);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
         }
 
-        if (endTime.isBefore(startTime)) {
-            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
-        }
+        Booking booking;
+        ReentrantLock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
 
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+            if (!isAvailable(room, startTime, endTime)) {
+                return false;
+            }
 
-        if (!room.isAvailable(startTime, endTime)) {
-            return false;
+            booking = new Booking(UUID.randomUUID().toString(), roomId, startTime, endTime);
+            long modifications = room.modificationCount();
+            room.addBooking(booking);
+            roomRepository.save(room);
+            occupancy.booked(room, booking, modifications);
+        } finally {
+            lock.unlock();
         }
-
-        Booking booking = new Booking(UUID.randomUUID().toString(), roomId, startTime, endTime);
-        room.addBooking(booking);
-        roomRepository.save(room);
+        occupancy.forgetBefore(now);
 
         try {
             notificationService.sendBookingConfirmation(booking);
         } catch (NotificationException e) {
             // Fortsätt även om notifieringen misslyckas
+            notificationFailures.increment();
         }
 
         return true;
     }
 
+    /**
+     * Bokar flera tider i ett svep. Förfrågningarna grupperas per rum så att varje rum läses
+     * och sparas en gång, och de prövas i given ordning både mot befintliga bokningar och mot
+     * varandra. Resultatet har samma ordning som förfrågningarna.
+     */
+    public List<BookingResult> bookRooms(List<BookingRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Förfrågningar kan inte vara null");
+        }
+
+        BookingResult[] results = new BookingResult[requests.size()];
+        Map<String, List<Integer>> requestsByRoom = new LinkedHashMap<>();
+        LocalDateTime now = timeProvider.getCurrentTime();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            if (request == null || request.getRoomId() == null
+                    || request.getStartTime() == null || request.getEndTime() == null) {
+                results[i] = BookingResult.invalid(request, "Bokning kräver giltiga start- och sluttider samt rum-id");
+                continue;
+            }
+            String error = validateBooking(request.getStartTime(), request.getEndTime(), now);
+            if (error != null) {
+                results[i] = BookingResult.invalid(request, error);
+                continue;
+            }
+            requestsByRoom.computeIfAbsent(request.getRoomId(), id -> new ArrayList<>()).add(i);
+        }
+
+        List<Booking> bookings = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> entry : requestsByRoom.entrySet()) {
+            String roomId = entry.getKey();
+            ReentrantLock lock = lockFor(roomId);
+            lock.lock();
+            try {
+                Optional<Room> found = roomRepository.findById(roomId);
+                if (found.isEmpty()) {
+                    for (int i : entry.getValue()) {
+                        results[i] = BookingResult.invalid(requests.get(i), "Rummet existerar inte");
+                    }
+                    continue;
+                }
+
+                Room room = found.get();
+                boolean changed = false;
+                for (int i : entry.getValue()) {
+                    BookingRequest request = requests.get(i);
+                    if (!isAvailable(room, request.getStartTime(), request.getEndTime())) {
+                        results[i] = BookingResult.unavailable(request);
+                        rejected.increment();
+                        continue;
+                    }
+                    Booking booking = new Booking(UUID.randomUUID().toString(), roomId,
+                            request.getStartTime(), request.getEndTime());
+                    long modifications = room.modificationCount();
+                    room.addBooking(booking);
+                    occupancy.booked(room, booking, modifications);
+                    results[i] = BookingResult.booked(request, booking);
+                    bookings.add(booking);
+                    changed = true;
+                }
+                if (changed) {
+                    roomRepository.save(room);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        occupancy.forgetBefore(now);
+        booked.add(bookings.size());
+        for (Booking booking : bookings) {
+            try {
+                notificationService.sendBookingConfirmation(booking);
+            } catch (NotificationException e) {
+                // Fortsätt även om notifieringen misslyckas
+                notificationFailures.increment();
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
     public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        return getAvailableRooms(startTime, endTime, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Lediga rum vars namn börjar med {@code namePrefix} (alla rum om den är null), högst
+     * {@code limit} stycken och i samma ordning som {@link RoomRepository#findAll()}. Stora
+     * rumsbestånd delas upp och söks parallellt i fork-join-poolen; sökningen avbryts så snart
+     * tillräckligt många lediga rum hittats. Med en gräns i parallellt läge är det därför inte
+     * säkert att det är de första lediga rummen i ordningen som returneras. Varje rum prövas först
+     * mot beläggningsindexet och söks bara bland sina bokningar när indexet inte kan avgöra saken.
+     */
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime, String namePrefix, int limit) {
+        long start = availableRoomsTimer.start();
+        try {
+            return findAvailableRooms(startTime, endTime, namePrefix, limit);
+        } finally {
+            availableRoomsTimer.stop(start);
+        }
+    }
+
+    private List<Room> findAvailableRooms(LocalDateTime startTime, LocalDateTime endTime, String namePrefix, int limit) {
         if (startTime == null || endTime == null) {
             throw new IllegalArgumentException("Måste ange både start- och sluttid");
         }
@@ -59,42 +248,454 @@ public class BookingSystem {
             throw new IllegalArgumentException("Sluttid måste vara efter starttid");
         }
 
-        return roomRepository.findAll().stream()
-                .filter(room -> room.isAvailable(startTime, endTime))
-                .collect(Collectors.toList());
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Antal rum måste vara positivt");
+        }
+
+        List<Room> rooms = roomRepository.findAll();
+        if (!(rooms instanceof RandomAccess)) {
+            rooms = new ArrayList<>(rooms);
+        }
+        AvailabilitySearch search = new AvailabilitySearch(rooms, 0, rooms.size(),
+                new Criteria(startTime, endTime, namePrefix, limit, occupancy.query(startTime, endTime)));
+        List<Room> available = rooms.size() < PARALLEL_SEARCH_THRESHOLD
+                ? search.searchDirectly()
+                : ForkJoinPool.commonPool().invoke(search);
+        // Parallella delsökningar kan hinna hitta några rum för mycket innan de ser att gränsen nåtts
+        return available.size() > limit ? new ArrayList<>(available.subList(0, limit)) : available;
+    }
+
+    /** Det tidigaste lediga fönstret bland {@code candidateRooms}, se {@link #findNextAvailable(Duration, LocalDateTime, LocalDateTime, Collection, int, Duration)}. */
+    public Optional<AvailableSlot> findNextAvailable(Duration duration, LocalDateTime earliestStart,
+                                                     LocalDateTime latestEnd, Collection<String> candidateRooms) {
+        return findNextAvailable(duration, earliestStart, latestEnd, candidateRooms, 1).stream().findFirst();
+    }
+
+    /**
+     * De högst {@code k} tidigaste fönstren av längden {@code duration} som ryms mellan
+     * {@code earliestStart} och {@code latestEnd} i något av {@code candidateRooms} (alla rum om
+     * null). Varje lucka mellan ett rums bokningar ger ett förslag, som börjar så tidigt luckan
+     * tillåter. Rummens luckor gås igenom lazy och slås ihop i en prioritetskö, så frågan läser
+     * bara de bokningar som ligger före det k:te förslaget. Fönster i dåtid föreslås inte.
+     * Förslagen börjar på hela minuter, se {@link #findNextAvailable(Duration, LocalDateTime,
+     * LocalDateTime, Collection, int, Duration)}.
+     */
+    public List<AvailableSlot> findNextAvailable(Duration duration, LocalDateTime earliestStart,
+                                                 LocalDateTime latestEnd, Collection<String> candidateRooms, int k) {
+        return findNextAvailable(duration, earliestStart, latestEnd, candidateRooms, k, DEFAULT_SLOT_GRANULARITY);
+    }
+
+    /**
+     * Som {@link #findNextAvailable(Duration, LocalDateTime, LocalDateTime, Collection, int)}, men
+     * varje förslag börjar på en jämn multipel av {@code granularity} räknat från midnatt, så en
+     * lucka efter en bokning som slutar 11:00 ger 11:01 med minutupplösning och 11:15 med kvartar.
+     */
+    public List<AvailableSlot> findNextAvailable(Duration duration, LocalDateTime earliestStart, LocalDateTime latestEnd,
+                                                 Collection<String> candidateRooms, int k, Duration granularity) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Längden måste vara positiv");
+        }
+        if (granularity == null || granularity.isNegative() || granularity.isZero()) {
+            throw new IllegalArgumentException("Upplösningen måste vara positiv");
+        }
+        Room.checkRange(earliestStart, latestEnd);
+        if (k <= 0) {
+            throw new IllegalArgumentException("Antal förslag måste vara positivt");
+        }
+
+        List<Room> rooms;
+        if (candidateRooms == null) {
+            rooms = roomRepository.findAll();
+        } else {
+            rooms = new ArrayList<>(candidateRooms.size());
+            for (String roomId : candidateRooms) {
+                if (roomId == null) {
+                    throw new IllegalArgumentException("Rum-id kan inte vara null");
+                }
+                rooms.add(roomRepository.findById(roomId)
+                        .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte")));
+            }
+        }
+
+        LocalDateTime now = timeProvider.getCurrentTime();
+        long from = Booking.toEpochNanos(earliestStart.isBefore(now) ? now : earliestStart);
+        long to = Booking.toEpochNanos(latestEnd);
+        long length = duration.toNanos();
+        long step = granularity.toNanos();
+        PriorityQueue<FreeSlotIterator> gaps = new PriorityQueue<>(Math.max(1, rooms.size()),
+                Comparator.comparingLong(FreeSlotIterator::start)
+                        .thenComparing(FreeSlotIterator::roomId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        for (Room room : rooms) {
+            // Bokningar som slutar exakt på earliestStart eller börjar på latestEnd stänger också fönster
+            FreeSlotIterator roomGaps = new FreeSlotIterator(room.getId(),
+                    room.bookingsBetween(from, to == Long.MAX_VALUE ? to : to + 1), length, step, from, to);
+            if (roomGaps.advance()) {
+                gaps.add(roomGaps);
+            }
+        }
+
+        List<AvailableSlot> slots = new ArrayList<>(Math.min(k, Math.max(1, gaps.size())));
+        while (slots.size() < k && !gaps.isEmpty()) {
+            FreeSlotIterator next = gaps.poll();
+            slots.add(new AvailableSlot(next.roomId(),
+                    Booking.toLocalDateTime(next.start()), Booking.toLocalDateTime(next.end())));
+            if (next.advance()) {
+                gaps.add(next);
+            }
+        }
+        return slots;
+    }
+
+    /** Rummets bokningar som överlappar [from, to), lazy i starttidsordning. */
+    public Stream<Booking> getBookings(String roomId, LocalDateTime from, LocalDateTime to) {
+        if (roomId == null) {
+            throw new IllegalArgumentException("Rum-id kan inte vara null");
+        }
+        Room.checkRange(from, to);
+        return roomRepository.findById(roomId)
+                .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"))
+                .getBookings(from, to);
+    }
+
+    /**
+     * Alla rums bokningar som överlappar [from, to), lazy i starttidsordning. Rummens sorterade
+     * bokningar slås ihop i takt med att strömmen läses, så bara en bokning per rum hålls åt gången.
+     */
+    public Stream<Booking> getBookings(LocalDateTime from, LocalDateTime to) {
+        Room.checkRange(from, to);
+        long fromNanos = Booking.toEpochNanos(from);
+        long toNanos = Booking.toEpochNanos(to);
+        List<Iterator<Booking>> perRoom = new ArrayList<>();
+        for (Room room : roomRepository.findAll()) {
+            perRoom.add(room.bookingsBetween(fromNanos, toNanos));
+        }
+        return Room.stream(new MergedBookingIterator(perRoom));
     }
 
     public boolean cancelBooking(String bookingId) {
+        long start = cancelTimer.start();
+        try {
+            boolean success = cancel(bookingId);
+            if (success) {
+                cancelled.increment();
+            }
+            return success;
+        } finally {
+            cancelTimer.stop(start);
+        }
+    }
+
+    private boolean cancel(String bookingId) {
         if (bookingId == null) {
             throw new IllegalArgumentException("Boknings-id kan inte vara null");
         }
 
-        Optional<Room> roomWithBooking = roomRepository.findAll().stream()
-                .filter(room -> room.hasBooking(bookingId))
-                .findFirst();
+        Optional<Room> roomWithBooking = roomRepository.findByBookingId(bookingId);
 
         if (roomWithBooking.isEmpty()) {
             return false;
         }
 
-        Room room = roomWithBooking.get();
-        Booking booking = room.getBooking(bookingId);
+        Booking booking;
+        ReentrantLock lock = lockFor(roomWithBooking.get().getId());
+        lock.lock();
+        try {
+            // Läs om under låset ifall en parallell avbokning hann före
+            roomWithBooking = roomRepository.findByBookingId(bookingId);
+            if (roomWithBooking.isEmpty()) {
+                return false;
+            }
 
-        if (booking.getStartTime().isBefore(timeProvider.getCurrentTime())) {
-            throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
-        }
+            Room room = roomWithBooking.get();
+            booking = room.getBooking(bookingId);
 
-        room.removeBooking(bookingId);
-        roomRepository.save(room);
+            if (booking.getStartTime().isBefore(timeProvider.getCurrentTime())) {
+                throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+            }
+
+            long modifications = room.modificationCount();
+            room.removeBooking(bookingId);
+            roomRepository.save(room);
+            occupancy.cancelled(room, booking, modifications);
+        } finally {
+            lock.unlock();
+        }
 
         try {
             notificationService.sendCancellationConfirmation(booking);
         } catch (NotificationException e) {
             // Fortsätt även om notifieringen misslyckas
+            notificationFailures.increment();
+        }
+
+        return true;
+    }
+
+    /**
+     * Bokar samma tid i rummet med fast period, till exempel varje vecka, till och med
+     * {@code until}. Serien lagras som en enda regel i stället för en bokning per tillfälle och
+     * bokas bara om inget av tillfällena krockar med rummets övriga bokningar. Tom om det krockar.
+     */
+    public Optional<RecurringBooking> bookRecurring(String roomId, LocalDateTime startTime, LocalDateTime endTime,
+                                                    Duration period, LocalDateTime until) {
+        if (startTime == null || endTime == null || roomId == null) {
+            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        }
+
+        String error = validateBooking(startTime, endTime, timeProvider.getCurrentTime());
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+
+        RecurringBooking series = new RecurringBooking(UUID.randomUUID().toString(), roomId,
+                startTime, endTime, period, until);
+        ReentrantLock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+
+            if (conflicts(room, series)) {
+                rejected.increment();
+                return Optional.empty();
+            }
+
+            room.addRecurringBooking(series);
+            roomRepository.save(room);
+        } finally {
+            lock.unlock();
+        }
+        booked.increment();
+
+        try {
+            notificationService.sendBookingConfirmation(series.firstOccurrence());
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+            notificationFailures.increment();
+        }
+
+        return Optional.of(series);
+    }
+
+    /**
+     * Avbokar ett enskilt tillfälle i en serie genom att lägga till det som undantag i regeln.
+     * Falskt om rummet saknar serien eller tillfället redan är avbokat.
+     */
+    public boolean cancelOccurrence(String roomId, String seriesId, LocalDateTime occurrenceStart) {
+        if (roomId == null || seriesId == null || occurrenceStart == null) {
+            throw new IllegalArgumentException("Avbokning kräver rum-id, serie-id och starttid");
+        }
+
+        Booking occurrence;
+        ReentrantLock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            Optional<Room> found = roomRepository.findById(roomId);
+            if (found.isEmpty() || !found.get().hasRecurringBooking(seriesId)) {
+                return false;
+            }
+            Room room = found.get();
+            occurrence = room.getRecurringBooking(seriesId).occurrenceAt(occurrenceStart);
+
+            if (occurrenceStart.isBefore(timeProvider.getCurrentTime())) {
+                throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+            }
+
+            if (!room.cancelOccurrence(seriesId, occurrenceStart)) {
+                return false;
+            }
+            roomRepository.save(room);
+        } finally {
+            lock.unlock();
+        }
+        cancelled.increment();
+
+        try {
+            notificationService.sendCancellationConfirmation(occurrence);
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+            notificationFailures.increment();
         }
 
         return true;
     }
+
+    /**
+     * Avbokar seriens kommande tillfällen. Tillfällen som redan börjat ligger kvar, så serien
+     * slutar i stället med det sista av dem; har inget börjat tas hela serien bort. Falskt om
+     * rummet saknar serien, och kastar om serien inte har några kommande tillfällen kvar.
+     */
+    public boolean cancelRecurringBooking(String roomId, String seriesId) {
+        if (roomId == null || seriesId == null) {
+            throw new IllegalArgumentException("Avbokning kräver rum-id och serie-id");
+        }
+
+        Booking nextOccurrence;
+        ReentrantLock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            Optional<Room> found = roomRepository.findById(roomId);
+            if (found.isEmpty() || !found.get().hasRecurringBooking(seriesId)) {
+                return false;
+            }
+            Room room = found.get();
+            RecurringBooking series = room.getRecurringBooking(seriesId);
+            LocalDateTime now = timeProvider.getCurrentTime();
+            nextOccurrence = series.firstOccurrenceFrom(now);
+            if (nextOccurrence == null) {
+                throw new IllegalStateException("Serien har inga kommande tillfällen att avboka");
+            }
+
+            RecurringBooking past = series.endingBefore(now);
+            if (past == null) {
+                room.removeRecurringBooking(seriesId);
+            } else {
+                room.addRecurringBooking(past);
+            }
+            roomRepository.save(room);
+        } finally {
+            lock.unlock();
+        }
+        cancelled.increment();
+
+        try {
+            notificationService.sendCancellationConfirmation(nextOccurrence);
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+            notificationFailures.increment();
+        }
+
+        return true;
+    }
+
+    /** Sant om någon av rummets bokningar under seriens livslängd krockar med ett av seriens tillfällen. */
+    private static boolean conflicts(Room room, RecurringBooking series) {
+        long last = series.lastEndNanos();
+        Iterator<Booking> existing = room.bookingsBetween(series.startNanos(), last == Long.MAX_VALUE ? last : last + 1);
+        while (existing.hasNext()) {
+            Booking booking = existing.next();
+            if (series.overlaps(booking.startNanos(), booking.endNanos())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isAvailable(Room room, LocalDateTime startTime, LocalDateTime endTime) {
+        return isAvailable(room, startTime, endTime, roomAvailabilityTimer);
+    }
+
+    private static boolean isAvailable(Room room, LocalDateTime startTime, LocalDateTime endTime, Timer timer) {
+        long start = timer.start();
+        try {
+            return room.isAvailable(startTime, endTime);
+        } finally {
+            timer.stop(start);
+        }
+    }
+
+    private static String validateBooking(LocalDateTime startTime, LocalDateTime endTime, LocalDateTime now) {
+        if (startTime.isBefore(now)) {
+            return "Kan inte boka tid i dåtid";
+        }
+        if (endTime.isBefore(startTime)) {
+            return "Sluttid måste vara efter starttid";
+        }
+        return null;
+    }
+
+    private ReentrantLock lockFor(String roomId) {
+        int hash = Objects.hashCode(roomId);
+        return roomLocks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private static final class Criteria {
+        final LocalDateTime startTime;
+        final LocalDateTime endTime;
+        final String namePrefix;
+        final int limit;
+        // Null om frågan inte kan besvaras ur beläggningsindexet, till exempel för långa intervall
+        final OccupancyIndex.Query occupancy;
+        // Räknas bara när det finns en gräns, så att obegränsade sökningar inte delar en räknare
+        final AtomicInteger found = new AtomicInteger();
+
+        Criteria(LocalDateTime startTime, LocalDateTime endTime, String namePrefix, int limit,
+                 OccupancyIndex.Query occupancy) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.namePrefix = namePrefix;
+            this.limit = limit;
+            this.occupancy = occupancy;
+        }
+
+        boolean limited() {
+            return limit != Integer.MAX_VALUE;
+        }
+
+        boolean satisfied() {
+            return limited() && found.get() >= limit;
+        }
+    }
+
+    /** Söker lediga rum i rooms[from, to), delat på mitten tills delarna är små nog att söka direkt. */
+    // ForkJoin-uppgifter är Serializable bara genom arv; sökningen serialiseras aldrig
+    @SuppressWarnings("serial")
+    private final class AvailabilitySearch extends RecursiveTask<List<Room>> {
+        private final List<Room> rooms;
+        private final int from;
+        private final int to;
+        private final Criteria criteria;
+
+        AvailabilitySearch(List<Room> rooms, int from, int to, Criteria criteria) {
+            this.rooms = rooms;
+            this.from = from;
+            this.to = to;
+            this.criteria = criteria;
+        }
+
+        @Override
+        protected List<Room> compute() {
+            if (to - from <= SEARCH_LEAF_SIZE) {
+                return searchDirectly();
+            }
+            int middle = (from + to) >>> 1;
+            AvailabilitySearch left = new AvailabilitySearch(rooms, from, middle, criteria);
+            AvailabilitySearch right = new AvailabilitySearch(rooms, middle, to, criteria);
+            right.fork();
+            List<Room> available = left.compute();
+            available.addAll(right.join());
+            return available;
+        }
+
+        List<Room> searchDirectly() {
+            List<Room> available = new ArrayList<>();
+            boolean sampling = sampledScanTimer.isEnabled();
+            for (int i = from; i < to && !criteria.satisfied(); i++) {
+                Room room = rooms.get(i);
+                if (criteria.namePrefix != null
+                        && (room.getName() == null || !room.getName().startsWith(criteria.namePrefix))) {
+                    continue;
+                }
+                OccupancyIndex.Answer answer = criteria.occupancy == null
+                        ? OccupancyIndex.Answer.UNKNOWN : criteria.occupancy.check(room);
+                boolean free;
+                if (answer != OccupancyIndex.Answer.UNKNOWN) {
+                    free = answer == OccupancyIndex.Answer.FREE;
+                } else {
+                    free = sampling && ThreadLocalRandom.current().nextInt(SCAN_SAMPLE_RATE) == 0
+                            ? isAvailable(room, criteria.startTime, criteria.endTime, sampledScanTimer)
+                            : room.isAvailable(criteria.startTime, criteria.endTime);
+                }
+                if (free) {
+                    available.add(room);
+                    if (criteria.limited()) {
+                        criteria.found.incrementAndGet();
+                    }
+                }
+            }
+            return available;
+        }
+    }
 }
 
 // Stödklasser och interface som behövs:
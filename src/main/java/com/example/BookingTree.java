@@ -0,0 +1,223 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Oföränderligt AVL-träd av bokningar sorterat på starttid, där varje nod även
+ * håller den senaste sluttiden i sitt delträd. Det gör att en överlappsfråga
+ * kan avgöras i O(log n) i stället för att gå igenom alla bokningar.
+ */
+final class BookingTree {
+    private static final BookingTree EMPTY = new BookingTree(null);
+
+    private final Node root;
+
+    private BookingTree(Node root) {
+        this.root = root;
+    }
+
+    static BookingTree empty() {
+        return EMPTY;
+    }
+
+    BookingTree insert(Booking booking) {
+        return new BookingTree(insert(root, booking));
+    }
+
+    BookingTree remove(Booking booking) {
+        return new BookingTree(remove(root, booking));
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /** Sant om någon bokning överlappar det slutna intervallet [start, end], angivet i epok-nanosekunder. */
+    boolean overlapsAny(long start, long end) {
+        Node node = root;
+        while (node != null) {
+            if (node.booking.overlaps(start, end)) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd >= start) {
+                node = node.left;
+            } else if (node.booking.startNanos() > end) {
+                return false;
+            } else {
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Går lazy i starttidsordning igenom bokningarna som överlappar [start, end]. Delträd vars
+     * senaste sluttid ligger före {@code start} hoppas över och gången avbryts vid första bokning
+     * som börjar efter {@code end}, så kostnaden följer antalet träffar och inte trädets storlek.
+     */
+    Iterator<Booking> overlapping(long start, long end) {
+        return new OverlapIterator(root, start, end);
+    }
+
+    private static Node insert(Node node, Booking booking) {
+        if (node == null) {
+            return new Node(booking, null, null);
+        }
+        int cmp = compare(booking, node.booking);
+        if (cmp < 0) {
+            return balance(node.booking, insert(node.left, booking), node.right);
+        }
+        if (cmp > 0) {
+            return balance(node.booking, node.left, insert(node.right, booking));
+        }
+        return new Node(booking, node.left, node.right);
+    }
+
+    private static Node remove(Node node, Booking booking) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(booking, node.booking);
+        if (cmp < 0) {
+            return balance(node.booking, remove(node.left, booking), node.right);
+        }
+        if (cmp > 0) {
+            return balance(node.booking, node.left, remove(node.right, booking));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.booking, node.left, removeFirst(node.right));
+    }
+
+    private static Node removeFirst(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.booking, removeFirst(node.left), node.right);
+    }
+
+    private static Node balance(Booking booking, Node left, Node right) {
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left.booking, left.left, left.right);
+            }
+            return rotateRight(booking, left, right);
+        }
+        if (diff < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.booking, right.left, right.right);
+            }
+            return rotateLeft(booking, left, right);
+        }
+        return new Node(booking, left, right);
+    }
+
+    private static Node rotateRight(Booking booking, Node left, Node right) {
+        return new Node(left.booking, left.left, new Node(booking, left.right, right));
+    }
+
+    private static Node rotateLeft(Booking booking, Node left, Node right) {
+        return new Node(right.booking, new Node(booking, left, right.left), right.right);
+    }
+
+    private static int compare(Booking a, Booking b) {
+        int cmp = Long.compare(a.startNanos(), b.startNanos());
+        return cmp != 0 ? cmp : a.compareId(b);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class OverlapIterator implements Iterator<Booking> {
+        private final ArrayDeque<Node> path = new ArrayDeque<>();
+        private final long start;
+        private final long end;
+        private Booking next;
+
+        OverlapIterator(Node root, long start, long end) {
+            this.start = start;
+            this.end = end;
+            descend(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Booking next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Booking result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            next = null;
+            while (!path.isEmpty()) {
+                Node node = path.pop();
+                if (node.booking.startNanos() > end) {
+                    path.clear();
+                    return;
+                }
+                descend(node.right);
+                if (node.booking.overlaps(start, end)) {
+                    next = node.booking;
+                    return;
+                }
+            }
+        }
+
+        private void descend(Node node) {
+            while (node != null && node.maxEnd >= start) {
+                path.push(node);
+                node = node.left;
+            }
+        }
+    }
+
+    private static final class Node {
+        final Booking booking;
+        final Node left;
+        final Node right;
+        final int height;
+        final int size;
+        final long maxEnd;
+
+        Node(Booking booking, Node left, Node right) {
+            this.booking = booking;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+            long max = booking.endNanos();
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            this.maxEnd = max;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * {@link TimeProvider} som läser klockan från en bakgrundstråd med vald upplösning, t.ex. 1 ms
+ * eller 1 s, och däremellan lämnar ut samma oföränderliga tidpunkt. Anrop allokerar alltså
+ * ingenting och {@link #getCurrentTimeMillis()} läser bara ett fält.
+ *
+ * <p>Väggklockan läses vid varje uppdatering, så tiden följer när systemklockan ställs fram.
+ * Den publicerade tiden går däremot aldrig bakåt: ställs klockan tillbaka, eller vid övergång
+ * från sommartid, står tiden still tills klockan hunnit ikapp.
+ */
+public final class CachedTimeProvider implements TimeProvider, AutoCloseable {
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final long resolutionMillis;
+    private final Clock clock;
+    private final Thread refresher;
+    private volatile Snapshot current;
+    private volatile boolean closed;
+
+    public CachedTimeProvider(Duration resolution) {
+        this(resolution, Clock.systemDefaultZone());
+    }
+
+    public CachedTimeProvider(Duration resolution, Clock clock) {
+        if (resolution.toMillis() < 1) {
+            throw new IllegalArgumentException("Upplösningen måste vara minst en millisekund");
+        }
+        this.resolutionMillis = resolution.toMillis();
+        this.clock = clock;
+        this.current = new Snapshot(truncate(wallClockMillis()));
+        this.refresher = Thread.ofVirtual().name("time-refresher").start(this::refreshLoop);
+    }
+
+    @Override
+    public LocalDateTime getCurrentTime() {
+        return current.time;
+    }
+
+    @Override
+    public long getCurrentTimeMillis() {
+        return current.millis;
+    }
+
+    /** Stoppar bakgrundstråden; tiden står därefter still. */
+    @Override
+    public void close() {
+        closed = true;
+        refresher.interrupt();
+        try {
+            refresher.join();
+        } catch (InterruptedException e) {
+            // Tråden är redan avbruten och slutar av sig själv; anroparens avbrott bevaras
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Läser klockan och publicerar en ny tidpunkt om den hunnit passera nästa upplösningssteg. */
+    synchronized void refresh() {
+        long millis = truncate(wallClockMillis());
+        if (millis > current.millis) {
+            current = new Snapshot(millis);
+        }
+    }
+
+    private void refreshLoop() {
+        while (!closed) {
+            refresh();
+            try {
+                Thread.sleep(resolutionMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private long wallClockMillis() {
+        return LocalDateTime.now(clock).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private long truncate(long millis) {
+        return millis - Math.floorMod(millis, resolutionMillis);
+    }
+
+    private static final class Snapshot {
+        final long millis;
+        final LocalDateTime time;
+
+        Snapshot(long millis) {
+            this.millis = millis;
+            this.time = Booking.toLocalDateTime(millis * NANOS_PER_MILLI);
+        }
+    }
+}
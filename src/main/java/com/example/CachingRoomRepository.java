@@ -0,0 +1,172 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Läsande cache framför ett annat {@link RoomRepository}. Rum hålls i en LRU-cache med
+ * maxstorlek och maxålder, {@link #findAll()} besvaras från en cachad ögonblicksbild och
+ * {@link #save(Room)} skriver igenom till delegaten innan cachen uppdateras.
+ */
+public class CachingRoomRepository implements RoomRepository {
+    private final RoomRepository delegate;
+    private final int maximumSize;
+    private final long expireAfterNanos;
+    private final LongSupplier ticker;
+
+    private final Map<String, CachedRoom> rooms = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingRoomRepository(RoomRepository delegate, int maximumSize, Duration expireAfterWrite) {
+        this(delegate, maximumSize, expireAfterWrite, System::nanoTime);
+    }
+
+    public CachingRoomRepository(RoomRepository delegate, int maximumSize, Duration expireAfterWrite, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cachestorlek måste vara positiv");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.expireAfterNanos = expireAfterWrite.toNanos();
+        this.ticker = ticker;
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        long now = ticker.getAsLong();
+        synchronized (rooms) {
+            CachedRoom cached = rooms.get(id);
+            if (cached != null) {
+                if (!isExpired(cached.loadedAt, now)) {
+                    hits.increment();
+                    return Optional.of(cached.room);
+                }
+                rooms.remove(id);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        Optional<Room> loaded = delegate.findById(id);
+        loaded.ifPresent(room -> put(room, now, false));
+        return loaded;
+    }
+
+    @Override
+    public List<Room> findAll() {
+        long now = ticker.getAsLong();
+        Snapshot current = snapshot;
+        // En sparning under eller efter laddningen har ökat generationen och gjort listan inaktuell
+        if (current != null && current.generation == generation.get() && !isExpired(current.loadedAt, now)) {
+            hits.increment();
+            return current.rooms;
+        }
+        misses.increment();
+        long generationAtLoad = generation.get();
+        List<Room> loaded = List.copyOf(delegate.findAll());
+        snapshot = new Snapshot(loaded, generationAtLoad, now);
+        return loaded;
+    }
+
+    @Override
+    public void save(Room room) {
+        delegate.save(room);
+        generation.incrementAndGet();
+        snapshot = null;
+        put(room, ticker.getAsLong(), true);
+    }
+
+    @Override
+    public void delete(String id) {
+        delegate.delete(id);
+        invalidate(id);
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        return delegate.findByBookingId(bookingId);
+    }
+
+    public void invalidate(String id) {
+        synchronized (rooms) {
+            rooms.remove(id);
+        }
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    public void invalidateAll() {
+        synchronized (rooms) {
+            rooms.clear();
+        }
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /** Rum som lämnat cachen på grund av storleksgräns eller ålder. */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void put(Room room, long now, boolean replace) {
+        synchronized (rooms) {
+            // En laddning får inte skriva över ett rum som sparats under tiden
+            if (replace) {
+                rooms.put(room.getId(), new CachedRoom(room, now));
+            } else {
+                rooms.putIfAbsent(room.getId(), new CachedRoom(room, now));
+            }
+            Iterator<CachedRoom> eldest = rooms.values().iterator();
+            while (rooms.size() > maximumSize) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private boolean isExpired(long loadedAt, long now) {
+        return now - loadedAt >= expireAfterNanos;
+    }
+
+    private static final class CachedRoom {
+        final Room room;
+        final long loadedAt;
+
+        CachedRoom(Room room, long loadedAt) {
+            this.room = room;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private static final class Snapshot {
+        final List<Room> rooms;
+        final long generation;
+        final long loadedAt;
+
+        Snapshot(List<Room> rooms, long generation, long loadedAt) {
+            this.rooms = rooms;
+            this.generation = generation;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example;
+
+/**
+ * Open-addressing hash table from {@link Item} to a primitive quantity and unit price in cents.
+ * Uses linear probing with backward-shift deletion, so lookups, updates and removals allocate
+ * nothing; only growing the table does.
+ */
+final class CartLines {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Item[] keys = new Item[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] unitCents = new long[INITIAL_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /** The slot holding {@code item}, or -1 if it is not present. */
+    int indexOf(Item item) {
+        int mask = keys.length - 1;
+        for (int i = slot(item, mask); ; i = (i + 1) & mask) {
+            Item key = keys[i];
+            if (key == null) {
+                return -1;
+            }
+            if (key == item || key.equals(item)) {
+                return i;
+            }
+        }
+    }
+
+    /** Adds {@code item} with quantity zero and returns its slot. The item must not be present. */
+    int insert(Item item, long cents) {
+        if ((size + 1) * 4 > keys.length * 3) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = slot(item, mask);
+        while (keys[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = item;
+        quantities[i] = 0;
+        unitCents[i] = cents;
+        size++;
+        return i;
+    }
+
+    void removeAt(int index) {
+        int mask = keys.length - 1;
+        int gap = index;
+        // Shift later entries of the probe chain back so no tombstones are needed
+        for (int i = (gap + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+            int home = slot(keys[i], mask);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                quantities[gap] = quantities[i];
+                unitCents[gap] = unitCents[i];
+                gap = i;
+            }
+        }
+        keys[gap] = null;
+        size--;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    Item keyAt(int index) {
+        return keys[index];
+    }
+
+    int quantityAt(int index) {
+        return quantities[index];
+    }
+
+    void setQuantityAt(int index, int quantity) {
+        quantities[index] = quantity;
+    }
+
+    long unitCentsAt(int index) {
+        return unitCents[index];
+    }
+
+    private void resize(int capacity) {
+        Item[] oldKeys = keys;
+        int[] oldQuantities = quantities;
+        long[] oldUnitCents = unitCents;
+        keys = new Item[capacity];
+        quantities = new int[capacity];
+        unitCents = new long[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                quantities[i] = oldQuantities[j];
+                unitCents[i] = oldUnitCents[j];
+            }
+        }
+    }
+
+    private static int slot(Item item, int mask) {
+        int h = item.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
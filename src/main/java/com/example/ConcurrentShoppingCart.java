@@ -0,0 +1,147 @@
+package com.example;
+
+import com.example.pricing.PricingPlan;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shopping cart that several sessions can modify at once. Each line's quantity is updated with a
+ * compare-and-set loop, so updates to different items never block each other and concurrent updates
+ * to the same item are never lost. A line being removed is marked dead before it leaves the map,
+ * which forces racing adds to retry on a fresh line instead of incrementing a detached one.
+ *
+ * <p>Like {@link ShoppingCart}, a line keeps the unit price the item had when the line was created.
+ */
+public class ConcurrentShoppingCart {
+    private static final int REMOVED = -1;
+
+    private final ConcurrentHashMap<Item, Line> items = new ConcurrentHashMap<>();
+    private final LongAdder totalCents = new LongAdder();
+    private volatile double discountRate;
+
+    public void addItem(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        while (true) {
+            Line line = lineFor(item);
+            int quantity = line.quantity.get();
+            if (quantity == REMOVED) {
+                items.remove(item, line);
+            } else if (line.quantity.compareAndSet(quantity, Math.addExact(quantity, 1))) {
+                totalCents.add(line.unitCents);
+                return;
+            }
+        }
+    }
+
+    public void removeItem(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        while (true) {
+            Line line = items.get(item);
+            int quantity = line == null ? 0 : line.quantity.get();
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Item not in cart");
+            }
+            int next = quantity == 1 ? REMOVED : quantity - 1;
+            if (line.quantity.compareAndSet(quantity, next)) {
+                if (next == REMOVED) {
+                    items.remove(item, line);
+                }
+                totalCents.add(-line.unitCents);
+                return;
+            }
+        }
+    }
+
+    public void updateQuantity(Item item, int quantity) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        while (true) {
+            Line line = quantity == 0 ? items.get(item) : lineFor(item);
+            if (line == null) {
+                return;
+            }
+            int current = line.quantity.get();
+            if (current == REMOVED) {
+                items.remove(item, line);
+                continue;
+            }
+            if (line.quantity.compareAndSet(current, quantity == 0 ? REMOVED : quantity)) {
+                if (quantity == 0) {
+                    items.remove(item, line);
+                }
+                totalCents.add(Math.multiplyExact(line.unitCents, (long) quantity - current));
+                return;
+            }
+        }
+    }
+
+    public int getItemQuantity(Item item) {
+        if (item == null) {
+            return 0;
+        }
+        Line line = items.get(item);
+        return line == null ? 0 : Math.max(line.quantity.get(), 0);
+    }
+
+    public double calculateTotalPrice() {
+        return ShoppingCart.applyDiscountRate(totalCents.sum(), discountRate) / 100.0;
+    }
+
+    /** Prices the cart with {@code plan} in one pass over the lines, then applies the cart discount. */
+    public double calculateTotalPrice(PricingPlan plan) {
+        PricingPlan.Evaluation evaluation = plan.evaluate();
+        items.forEach((item, line) -> {
+            int quantity = line.quantity.get();
+            if (quantity > 0) {
+                evaluation.addLine(item, quantity, line.unitCents);
+            }
+        });
+        return ShoppingCart.applyDiscountRate(evaluation.totalCents(), discountRate) / 100.0;
+    }
+
+    /** Sets the discount taken off the cart total. Item prices are left untouched. */
+    public void applyDiscount(double discountRate) {
+        this.discountRate = ShoppingCart.checkDiscountRate(discountRate);
+    }
+
+    /**
+     * An immutable copy of the cart. Each quantity is a value the line actually held, but lines
+     * changed while the copy is taken may come from slightly different moments.
+     */
+    public Map<Item, Integer> getItems() {
+        Map<Item, Integer> snapshot = new HashMap<>();
+        items.forEach((item, line) -> {
+            int quantity = line.quantity.get();
+            if (quantity > 0) {
+                snapshot.put(item, quantity);
+            }
+        });
+        return Map.copyOf(snapshot);
+    }
+
+    private Line lineFor(Item item) {
+        Line line = items.get(item);
+        return line != null ? line : items.computeIfAbsent(item, Line::new);
+    }
+
+    private static final class Line {
+        final AtomicInteger quantity = new AtomicInteger();
+        final long unitCents;
+
+        Line(Item item) {
+            this.unitCents = ShoppingCart.toCents(item.getPrice());
+        }
+    }
+}
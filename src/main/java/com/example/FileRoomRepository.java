@@ -0,0 +1,413 @@
+package com.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Filbaserat {@link RoomRepository}. Varje sparning lägger bara till de bokningar som lagts
+ * till eller tagits bort sedan förra sparningen som poster i en minnesmappad logg. När loggen
+ * blir stor skrivs hela tillståndet till en ögonblicksbild och en ny logg påbörjas. Vid start
+ * läses ögonblicksbilden och loggen spelas upp ovanpå den. Återkommande bokningar sparas som
+ * hela regler och skrivs om bara när serien ändrats.
+ */
+public class FileRoomRepository implements RoomRepository, AutoCloseable {
+    static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+    // Loggen mappas som en enda buffert, som högst kan vara Integer.MAX_VALUE byte. Gränsen
+    // lämnar plats för att loggen växer förbi den innan komprimeringen hinner slå till.
+    static final long MAX_COMPACTION_THRESHOLD = 1L << 30;
+
+    private static final String SNAPSHOT_FILE = "rooms.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x524F4F4D;
+    private static final int INITIAL_LOG_SIZE = 1024 * 1024;
+    private static final int RECORD_HEADER = 8;
+    // Längden som markerar en null-sträng i en post
+    private static final int NULL_STRING = -1;
+
+    private static final byte ROOM = 1;
+    private static final byte ADD_BOOKING = 2;
+    private static final byte REMOVE_BOOKING = 3;
+    private static final byte PUT_RECURRING = 4;
+    private static final byte REMOVE_RECURRING = 5;
+    private static final byte REMOVE_ROOM = 6;
+
+    private final Path directory;
+    private final long compactionThreshold;
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final BookingIndex bookingIndex = new BookingIndex();
+    // Senast sparade version av varje rums serier; serierna är oföränderliga så identitet räcker
+    private final Map<String, Map<String, RecurringBooking>> savedRecurring = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+
+    private long generation;
+    private FileChannel logChannel;
+    private MappedByteBuffer log;
+
+    public FileRoomRepository(Path directory) throws IOException {
+        this(directory, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public FileRoomRepository(Path directory, long compactionThreshold) throws IOException {
+        if (compactionThreshold <= 0 || compactionThreshold > MAX_COMPACTION_THRESHOLD) {
+            throw new IllegalArgumentException("Komprimeringsgränsen måste vara mellan 1 och "
+                    + MAX_COMPACTION_THRESHOLD + " byte");
+        }
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+        Files.createDirectories(directory);
+        readSnapshot();
+        openLog();
+        replayLog();
+        for (Room room : rooms.values()) {
+            bookingIndex.update(room);
+            savedRecurring.put(room.getId(), recurringById(room));
+        }
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public synchronized void save(Room room) {
+        if (!rooms.containsKey(room.getId())) {
+            append(ROOM, room.getId(), room.getName());
+        }
+        rooms.put(room.getId(), room);
+        // Indexet flyttar fram rummets version först när alla poster skrivits, så ett fel här tar inte bort dem
+        bookingIndex.update(room, delta -> {
+            for (Object key : delta.removed) {
+                // Nyckeln är bokningens id, eller dess UUID som skrivs ut till samma sträng
+                append(REMOVE_BOOKING, room.getId(), key.toString());
+            }
+            for (Booking booking : delta.added) {
+                append(ADD_BOOKING, room.getId(), booking.getId(), booking.startNanos(), booking.endNanos());
+            }
+        });
+        Map<String, RecurringBooking> recurring = recurringById(room);
+        Map<String, RecurringBooking> saved = savedRecurring.getOrDefault(room.getId(), Map.of());
+        for (String seriesId : saved.keySet()) {
+            if (!recurring.containsKey(seriesId)) {
+                append(REMOVE_RECURRING, room.getId(), seriesId);
+            }
+        }
+        for (RecurringBooking series : recurring.values()) {
+            if (saved.get(series.getId()) != series) {
+                append(PUT_RECURRING, recurringFields(room.getId(), series));
+            }
+        }
+        savedRecurring.put(room.getId(), recurring);
+        if (log.position() >= compactionThreshold) {
+            compact();
+        }
+    }
+
+    @Override
+    public synchronized void delete(String id) {
+        if (rooms.remove(id) == null) {
+            return;
+        }
+        append(REMOVE_ROOM, id);
+        bookingIndex.remove(id);
+        savedRecurring.remove(id);
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        return bookingIndex.findRoomId(bookingId)
+                .map(rooms::get)
+                .filter(room -> room.hasBooking(bookingId));
+    }
+
+    /** Skriver hela tillståndet till en ny ögonblicksbild och börjar på en tom logg. */
+    public synchronized void compact() {
+        try {
+            Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeLong(generation + 1);
+                out.writeInt(rooms.size());
+                for (Room room : rooms.values()) {
+                    out.writeUTF(room.getId());
+                    out.writeBoolean(room.getName() != null);
+                    if (room.getName() != null) {
+                        out.writeUTF(room.getName());
+                    }
+                    List<Booking> bookings = new ArrayList<>(room.getBookings());
+                    out.writeInt(bookings.size());
+                    for (Booking booking : bookings) {
+                        out.writeUTF(booking.getId());
+                        out.writeLong(booking.startNanos());
+                        out.writeLong(booking.endNanos());
+                    }
+                    List<RecurringBooking> recurring = new ArrayList<>(room.getRecurringBookings());
+                    out.writeInt(recurring.size());
+                    for (RecurringBooking series : recurring) {
+                        out.writeUTF(series.getId());
+                        out.writeLong(series.startNanos());
+                        out.writeLong(series.endNanos());
+                        out.writeLong(series.periodNanos());
+                        out.writeLong(series.lastIndex());
+                        long[] exceptions = series.exceptionIndexes();
+                        out.writeInt(exceptions.length);
+                        for (long exception : exceptions) {
+                            out.writeLong(exception);
+                        }
+                    }
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            Path oldLog = logFile(generation);
+            logChannel.close();
+            generation++;
+            openLog();
+            Files.deleteIfExists(oldLog);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Tvingar ut loggen till disk. */
+    public synchronized void flush() {
+        log.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.force();
+        logChannel.close();
+    }
+
+    private void readSnapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Ogiltig ögonblicksbild: " + snapshot);
+            }
+            generation = in.readLong();
+            int roomCount = in.readInt();
+            for (int r = 0; r < roomCount; r++) {
+                String roomId = in.readUTF();
+                Room room = new Room(roomId, in.readBoolean() ? in.readUTF() : null);
+                int bookingCount = in.readInt();
+                for (int b = 0; b < bookingCount; b++) {
+                    room.addBooking(new Booking(in.readUTF(), room.getId(), in.readLong(), in.readLong()));
+                }
+                int recurringCount = in.readInt();
+                for (int s = 0; s < recurringCount; s++) {
+                    String seriesId = in.readUTF();
+                    long start = in.readLong();
+                    long end = in.readLong();
+                    long period = in.readLong();
+                    long lastIndex = in.readLong();
+                    long[] exceptions = new long[in.readInt()];
+                    for (int e = 0; e < exceptions.length; e++) {
+                        exceptions[e] = in.readLong();
+                    }
+                    room.addRecurringBooking(new RecurringBooking(seriesId, room.getId(), start, end, period, lastIndex, exceptions));
+                }
+                rooms.put(room.getId(), room);
+            }
+        }
+    }
+
+    private void openLog() throws IOException {
+        logChannel = FileChannel.open(logFile(generation),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(logChannel.size(), INITIAL_LOG_SIZE));
+    }
+
+    /** Spelar upp loggen fram till första tomma eller trasiga post och fortsätter skriva därifrån. */
+    private void replayLog() {
+        while (log.remaining() >= RECORD_HEADER) {
+            int start = log.position();
+            int length = log.getInt();
+            int checksum = log.getInt();
+            if (length <= 0 || length > log.remaining() || checksum != checksum(start + RECORD_HEADER, length)) {
+                log.position(start);
+                break;
+            }
+            applyRecord(log.slice(start + RECORD_HEADER, length));
+            log.position(start + RECORD_HEADER + length);
+        }
+    }
+
+    private void applyRecord(ByteBuffer record) {
+        byte type = record.get();
+        String roomId = readString(record);
+        switch (type) {
+            case ROOM -> rooms.put(roomId, new Room(roomId, readString(record)));
+            case ADD_BOOKING -> {
+                String bookingId = readString(record);
+                rooms.get(roomId).addBooking(new Booking(bookingId, roomId, record.getLong(), record.getLong()));
+            }
+            case REMOVE_BOOKING -> rooms.get(roomId).removeBooking(readString(record));
+            case PUT_RECURRING -> {
+                String seriesId = readString(record);
+                long start = record.getLong();
+                long end = record.getLong();
+                long period = record.getLong();
+                long lastIndex = record.getLong();
+                long[] exceptions = new long[record.getInt()];
+                for (int i = 0; i < exceptions.length; i++) {
+                    exceptions[i] = record.getLong();
+                }
+                rooms.get(roomId).addRecurringBooking(new RecurringBooking(seriesId, roomId, start, end, period, lastIndex, exceptions));
+            }
+            case REMOVE_RECURRING -> rooms.get(roomId).removeRecurringBooking(readString(record));
+            case REMOVE_ROOM -> rooms.remove(roomId);
+            default -> throw new IllegalStateException("Okänd posttyp i loggen: " + type);
+        }
+    }
+
+    /**
+     * Lägger till en post med fälten i ordning: strängar (null tillåts), long och int. Hela posten
+     * kodas och storleksbestäms innan något skrivs, och misslyckas skrivningen står loggen kvar
+     * där den stod, så nästa post skriver över resterna.
+     */
+    private void append(byte type, Object... fields) {
+        List<byte[]> strings = new ArrayList<>();
+        int length = 1;
+        for (Object field : fields) {
+            if (field == null) {
+                strings.add(null);
+                length += Integer.BYTES;
+            } else if (field instanceof String text) {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                length += Integer.BYTES + bytes.length;
+            } else if (field instanceof Long) {
+                length += Long.BYTES;
+            } else if (field instanceof Integer) {
+                length += Integer.BYTES;
+            } else {
+                throw new IllegalArgumentException("Fältet kan inte skrivas till loggen: " + field);
+            }
+        }
+        ensureCapacity(RECORD_HEADER + length);
+
+        int start = log.position();
+        try {
+            log.position(start + RECORD_HEADER);
+            log.put(type);
+            int nextString = 0;
+            for (Object field : fields) {
+                if (field == null || field instanceof String) {
+                    byte[] bytes = strings.get(nextString++);
+                    if (bytes == null) {
+                        log.putInt(NULL_STRING);
+                    } else {
+                        log.putInt(bytes.length);
+                        log.put(bytes);
+                    }
+                } else if (field instanceof Long value) {
+                    log.putLong(value);
+                } else {
+                    log.putInt((Integer) field);
+                }
+            }
+            int end = log.position();
+            // Huvudet skrivs sist så att en halvskriven post aldrig ser giltig ut vid uppspelning
+            log.putInt(start + Integer.BYTES, checksum(start + RECORD_HEADER, length));
+            log.putInt(start, length);
+            log.position(end);
+        } catch (RuntimeException e) {
+            log.position(start);
+            throw e;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (log.remaining() >= needed) {
+            return;
+        }
+        try {
+            int position = log.position();
+            long required = position + (long) needed;
+            if (required > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Loggen får inte plats i en mappning: " + required + " byte");
+            }
+            long size = Math.min(Math.max(2L * log.capacity(), required), Integer.MAX_VALUE);
+            log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            log.position(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int checksum(int offset, int length) {
+        crc.reset();
+        crc.update(log.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static Map<String, RecurringBooking> recurringById(Room room) {
+        Map<String, RecurringBooking> recurring = new HashMap<>();
+        for (RecurringBooking series : room.getRecurringBookings()) {
+            recurring.put(series.getId(), series);
+        }
+        return recurring;
+    }
+
+    private static Object[] recurringFields(String roomId, RecurringBooking series) {
+        long[] exceptions = series.exceptionIndexes();
+        Object[] fields = new Object[7 + exceptions.length];
+        fields[0] = roomId;
+        fields[1] = series.getId();
+        fields[2] = series.startNanos();
+        fields[3] = series.endNanos();
+        fields[4] = series.periodNanos();
+        fields[5] = series.lastIndex();
+        fields[6] = exceptions.length;
+        for (int i = 0; i < exceptions.length; i++) {
+            fields[7 + i] = exceptions[i];
+        }
+        return fields;
+    }
+
+    private static String readString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length == NULL_STRING) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path logFile(long generation) {
+        return directory.resolve("rooms-" + generation + ".log");
+    }
+}
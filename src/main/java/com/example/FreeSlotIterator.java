@@ -0,0 +1,84 @@
+package com.example;
+
+import java.util.Iterator;
+
+/**
+ * Går lazy igenom luckorna mellan ett rums bokningar i tidsordning och stannar vid varje lucka
+ * som rymmer {@code duration}. Bokningar är slutna intervall, så ett fönster får tidigast börja
+ * nanosekunden efter att föregående bokning slutat och måste sluta före nästa boknings start.
+ * Fönstrets start avrundas dessutom uppåt till en jämn multipel av {@code granularity}.
+ */
+final class FreeSlotIterator {
+    private final String roomId;
+    private final Iterator<Booking> bookings;
+    private final long duration;
+    private final long granularity;
+    private final long latestEnd;
+    private long cursor;
+    private boolean tailChecked;
+    private long start;
+
+    /**
+     * @param bookings rummets bokningar som överlappar [earliestStart, latestEnd], i starttidsordning
+     */
+    FreeSlotIterator(String roomId, Iterator<Booking> bookings, long duration, long granularity,
+                     long earliestStart, long latestEnd) {
+        this.roomId = roomId;
+        this.bookings = bookings;
+        this.duration = duration;
+        this.granularity = granularity;
+        this.latestEnd = latestEnd;
+        this.cursor = earliestStart;
+    }
+
+    String roomId() {
+        return roomId;
+    }
+
+    /** Starten på fönstret som senast hittades av {@link #advance()}. */
+    long start() {
+        return start;
+    }
+
+    long end() {
+        return start + duration;
+    }
+
+    /** Letar fram nästa lucka som rymmer fönstret; falskt när rummet inte har fler. */
+    boolean advance() {
+        while (bookings.hasNext() && cursor <= latestEnd) {
+            Booking booking = bookings.next();
+            long candidate = roundUp(cursor);
+            boolean fits = booking.startNanos() > candidate
+                    && fits(candidate, Math.min(booking.startNanos() - 1, latestEnd));
+            cursor = Math.max(cursor, booking.endNanos() + 1);
+            if (fits) {
+                start = candidate;
+                return true;
+            }
+        }
+        if (!tailChecked) {
+            tailChecked = true;
+            long candidate = roundUp(cursor);
+            if (fits(candidate, latestEnd)) {
+                start = candidate;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Närmaste multipel av upplösningen som inte är tidigare än {@code nanos}. */
+    private long roundUp(long nanos) {
+        long past = Math.floorMod(nanos, granularity);
+        if (past == 0) {
+            return nanos;
+        }
+        long missing = granularity - past;
+        return nanos > Long.MAX_VALUE - missing ? Long.MAX_VALUE : nanos + missing;
+    }
+
+    private boolean fits(long from, long lastNanosecond) {
+        return from <= lastNanosecond && lastNanosecond - from >= duration;
+    }
+}
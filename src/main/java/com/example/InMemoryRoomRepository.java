@@ -0,0 +1,41 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryRoomRepository implements RoomRepository {
+    private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+    private final BookingIndex bookingIndex = new BookingIndex();
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public void save(Room room) {
+        rooms.put(room.getId(), room);
+        bookingIndex.update(room);
+    }
+
+    @Override
+    public void delete(String id) {
+        rooms.remove(id);
+        bookingIndex.remove(id);
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        return bookingIndex.findRoomId(bookingId)
+                .map(rooms::get)
+                .filter(room -> room.hasBooking(bookingId));
+    }
+}
@@ -3,11 +3,14 @@ package com.example;
 import java.util.Objects;
 
 public class Item {
-    private String name;
+    private final String name;
+    // Equality is by name only, so the hash is computed once instead of on every lookup
+    private final int hash;
     private double price;
 
     public Item(String name, double price) {
         this.name = name;
+        this.hash = Objects.hashCode(name);
         this.price = price;
     }
 
@@ -33,6 +36,6 @@ public class Item {
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, price);
+        return hash;
     }
 }
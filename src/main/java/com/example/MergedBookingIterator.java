@@ -0,0 +1,58 @@
+package com.example;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Slår lazy ihop flera iteratorer som var för sig är sorterade på starttid till en enda sorterad
+ * iterator. En prioritetskö håller nästa bokning från varje källa, så varje steg kostar
+ * O(log k) för k källor. Lika starttider ordnas på rum-id och sedan boknings-id.
+ */
+final class MergedBookingIterator implements Iterator<Booking> {
+    private static final Comparator<Booking> ORDER = Comparator.comparingLong(Booking::startNanos)
+            .thenComparing(Booking::getRoomId, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Booking::compareId);
+
+    private final PriorityQueue<Source> sources;
+
+    MergedBookingIterator(List<Iterator<Booking>> iterators) {
+        sources = new PriorityQueue<>(Math.max(1, iterators.size()), (a, b) -> ORDER.compare(a.head, b.head));
+        for (Iterator<Booking> iterator : iterators) {
+            if (iterator.hasNext()) {
+                sources.add(new Source(iterator));
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !sources.isEmpty();
+    }
+
+    @Override
+    public Booking next() {
+        Source source = sources.poll();
+        if (source == null) {
+            throw new NoSuchElementException();
+        }
+        Booking result = source.head;
+        if (source.rest.hasNext()) {
+            source.head = source.rest.next();
+            sources.add(source);
+        }
+        return result;
+    }
+
+    private static final class Source {
+        final Iterator<Booking> rest;
+        Booking head;
+
+        Source(Iterator<Booking> rest) {
+            this.rest = rest;
+            this.head = rest.next();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example;
+
+public class Notification {
+    public enum Type {
+        BOOKING_CONFIRMATION,
+        CANCELLATION_CONFIRMATION
+    }
+
+    private final Type type;
+    private final Booking booking;
+
+    public Notification(Type type, Booking booking) {
+        this.type = type;
+        this.booking = booking;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+}
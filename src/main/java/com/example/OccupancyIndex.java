@@ -0,0 +1,304 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Förberäknad beläggning för alla rum: ett bitset per rum och dygn med en bit per tidslucka,
+ * satt om någon bokning överlappar luckan. Dygnens bitset ligger rum efter rum i en gemensam
+ * array, så en fråga hämtar varje dygn en gång, räknar fram sina luckor som ordmasker och prövar
+ * sedan varje rum med några AND på rummets ord i stället för att söka bland dess bokningar.
+ *
+ * <p>En satt bit i en lucka som frågan täcker helt betyder upptaget och tomma luckor betyder ledigt.
+ * Luckor som frågan bara täcker delvis kan inte avgöras på biten; de rummen, liksom rum med
+ * återkommande bokningar eller bokningar längre än {@link #MAX_MARKED_DAYS} dygn, prövas exakt.
+ *
+ * <p>{@link BookingSystem} uppdaterar indexet stegvis vid varje bokning och avbokning. Rum som
+ * ändrats på annat sätt, eller nya rumsinstanser, känns igen på {@link Room#modificationCount()}
+ * och indexeras om när de frågas. Ändringar serialiseras här; frågor läser utan lås.
+ */
+final class OccupancyIndex {
+    static final Duration DEFAULT_SLOT = Duration.ofMinutes(15);
+    // Bokningar och frågor över fler dygn än så här prövas exakt i stället
+    static final int MAX_MARKED_DAYS = 31;
+    static final int MAX_QUERY_DAYS = 31;
+
+    private static final long NANOS_PER_DAY = Duration.ofDays(1).toNanos();
+
+    /** Svaret för ett rum: säkert ledigt, säkert upptaget eller okänt så att rummet måste prövas exakt. */
+    enum Answer {
+        FREE, BUSY, UNKNOWN
+    }
+
+    private final long slotNanos;
+    private final int slotsPerDay;
+    private final int wordsPerDay;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, Day> days = new ConcurrentHashMap<>();
+    // Dygn före detta har glömts och kan inte besvaras ur indexet
+    private volatile long firstDay = Long.MIN_VALUE;
+    private int nextNumber;
+
+    OccupancyIndex(Duration slot) {
+        if (slot == null || slot.isNegative() || slot.isZero() || NANOS_PER_DAY % slot.toNanos() != 0) {
+            throw new IllegalArgumentException("Tidsluckan måste vara positiv och gå jämnt upp i ett dygn");
+        }
+        this.slotNanos = slot.toNanos();
+        this.slotsPerDay = (int) (NANOS_PER_DAY / slotNanos);
+        this.wordsPerDay = (slotsPerDay + 63) >>> 6;
+    }
+
+    /** Luckorna som överlappar det slutna intervallet [start, end], eller null om frågan inte kan besvaras ur indexet. */
+    Query query(LocalDateTime start, LocalDateTime end) {
+        long from = Booking.toEpochNanos(start);
+        long to = Booking.toEpochNanos(end);
+        long fromDay = Math.floorDiv(from, NANOS_PER_DAY);
+        long toDay = Math.floorDiv(to, NANOS_PER_DAY);
+        if (fromDay < firstDay || toDay - fromDay >= MAX_QUERY_DAYS) {
+            return null;
+        }
+        int dayCount = (int) (toDay - fromDay + 1);
+        Day[] queried = new Day[dayCount];
+        long[] touched = new long[dayCount * wordsPerDay];
+        long[] covered = new long[dayCount * wordsPerDay];
+        for (int d = 0; d < dayCount; d++) {
+            // Dygnen skapas även om de är tomma, så att bitar som sätts under frågan hamnar i samma dygn
+            queried[d] = days.computeIfAbsent(fromDay + d, day -> new Day());
+            int first = d == 0 ? slotOf(from) : 0;
+            int last = d == dayCount - 1 ? slotOf(to) : slotsPerDay - 1;
+            setRange(touched, d * wordsPerDay, first, last);
+            // Bara luckor som ligger helt inom intervallet säger säkert att rummet är upptaget
+            boolean startsMidSlot = d == 0 && Math.floorMod(from, slotNanos) != 0;
+            boolean endsMidSlot = d == dayCount - 1 && Math.floorMod(to, slotNanos) != slotNanos - 1;
+            int firstCovered = startsMidSlot ? first + 1 : first;
+            int lastCovered = endsMidSlot ? last - 1 : last;
+            if (firstCovered <= lastCovered) {
+                setRange(covered, d * wordsPerDay, firstCovered, lastCovered);
+            }
+        }
+        return new Query(queried, touched, covered);
+    }
+
+    /** Uppdaterar indexet efter att {@code booking} lagts till i rummet, som hade {@code modificationsBefore} ändringar innan. */
+    synchronized void booked(Room room, Booking booking, long modificationsBefore) {
+        Entry entry = stepFrom(room, modificationsBefore);
+        if (entry == null) {
+            reindex(room);
+            return;
+        }
+        boolean exact = entry.exact || !mark(entry.number, booking.startNanos(), booking.endNanos());
+        if (exact && !entry.exact) {
+            clearRoom(entry.number);
+        }
+        entries.put(room.getId(), new Entry(entry.number, room, modificationsBefore + 1, exact));
+    }
+
+    /** Uppdaterar indexet efter att {@code booking} tagits bort ur rummet, som hade {@code modificationsBefore} ändringar innan. */
+    synchronized void cancelled(Room room, Booking booking, long modificationsBefore) {
+        Entry entry = stepFrom(room, modificationsBefore);
+        if (entry == null) {
+            reindex(room);
+            return;
+        }
+        if (!entry.exact) {
+            // Luckorna i kanterna kan delas med andra bokningar, så de märks om efter rensningen
+            long from = Math.floorDiv(booking.startNanos(), slotNanos) * slotNanos;
+            long to = Math.floorDiv(booking.endNanos(), slotNanos) * slotNanos + slotNanos - 1;
+            set(entry.number, booking.startNanos(), booking.endNanos(), false);
+            Iterator<Booking> remaining = room.bookingsBetween(from, to == Long.MAX_VALUE ? to : to + 1);
+            while (remaining.hasNext()) {
+                Booking other = remaining.next();
+                set(entry.number, Math.max(other.startNanos(), from), Math.min(other.endNanos(), to), true);
+            }
+        }
+        entries.put(room.getId(), new Entry(entry.number, room, modificationsBefore + 1, entry.exact));
+    }
+
+    /** Glömmer dygnen före {@code time}; frågor som börjar före dess dygn prövas därefter exakt. */
+    synchronized void forgetBefore(LocalDateTime time) {
+        long day = Math.floorDiv(Booking.toEpochNanos(time), NANOS_PER_DAY);
+        if (day > firstDay) {
+            firstDay = day;
+            days.keySet().removeIf(indexed -> indexed < day);
+        }
+    }
+
+    /** Rummets post om den motsvarar läget före den senaste ändringen och inget annat har ändrats, annars null. */
+    private Entry stepFrom(Room room, long modificationsBefore) {
+        Entry entry = room.getId() == null ? null : entries.get(room.getId());
+        if (entry == null || entry.room != room || entry.modifications != modificationsBefore
+                || room.modificationCount() != modificationsBefore + 1) {
+            return null;
+        }
+        return entry;
+    }
+
+    /** Rummets aktuella post; rum som inte indexerats eller ändrats sedan indexeras om. Null för rum utan id. */
+    private Entry current(Room room) {
+        if (room.getId() == null) {
+            return null;
+        }
+        Entry entry = entries.get(room.getId());
+        if (entry != null && entry.room == room && entry.modifications == room.modificationCount()) {
+            return entry;
+        }
+        return reindex(room);
+    }
+
+    private synchronized Entry reindex(Room room) {
+        if (room.getId() == null) {
+            return null;
+        }
+        Entry entry = entries.get(room.getId());
+        // Läses före bokningarna, så en ändring under tiden gör bara att rummet indexeras om igen
+        long modifications = room.modificationCount();
+        if (entry != null && entry.room == room && entry.modifications == modifications) {
+            return entry;
+        }
+        int number;
+        if (entry == null) {
+            number = nextNumber++;
+        } else {
+            number = entry.number;
+            if (!entry.exact) {
+                clearRoom(number);
+            }
+        }
+        boolean exact = !room.getRecurringBookings().isEmpty();
+        if (!exact) {
+            for (Booking booking : room.getBookings()) {
+                if (!mark(number, booking.startNanos(), booking.endNanos())) {
+                    clearRoom(number);
+                    exact = true;
+                    break;
+                }
+            }
+        }
+        Entry indexed = new Entry(number, room, modifications, exact);
+        entries.put(room.getId(), indexed);
+        return indexed;
+    }
+
+    /** Sätter bokningens luckor, eller returnerar falskt utan att ändra något om den är för lång. */
+    private boolean mark(int number, long start, long end) {
+        long fromDay = Math.max(Math.floorDiv(start, NANOS_PER_DAY), firstDay);
+        long toDay = Math.floorDiv(end, NANOS_PER_DAY);
+        if (toDay - fromDay >= MAX_MARKED_DAYS) {
+            return false;
+        }
+        set(number, start, end, true);
+        return true;
+    }
+
+    /** Sätter eller rensar rummets bitar för luckorna som överlappar [start, end] i dygn som inte glömts. */
+    private void set(int number, long start, long end, boolean occupied) {
+        long fromDay = Math.max(Math.floorDiv(start, NANOS_PER_DAY), firstDay);
+        long toDay = Math.floorDiv(end, NANOS_PER_DAY);
+        for (long day = fromDay; day <= toDay; day++) {
+            int first = day == Math.floorDiv(start, NANOS_PER_DAY) ? slotOf(start) : 0;
+            int last = day == toDay ? slotOf(end) : slotsPerDay - 1;
+            Day bits = occupied ? days.computeIfAbsent(day, d -> new Day()) : days.get(day);
+            if (bits != null) {
+                bits.set(number * wordsPerDay, first, last, occupied, wordsPerDay);
+            }
+        }
+    }
+
+    private void clearRoom(int number) {
+        for (Day day : days.values()) {
+            day.set(number * wordsPerDay, 0, slotsPerDay - 1, false, wordsPerDay);
+        }
+    }
+
+    private int slotOf(long nanos) {
+        return (int) (Math.floorMod(nanos, NANOS_PER_DAY) / slotNanos);
+    }
+
+    private static void setRange(long[] words, int base, int first, int last) {
+        for (int slot = first; slot <= last; slot++) {
+            words[base + (slot >>> 6)] |= 1L << slot;
+        }
+    }
+
+    /** En fråga med ordmaskerna för sina dygn; prövar rum ett i taget och kan delas mellan trådar. */
+    final class Query {
+        private final Day[] queried;
+        private final long[] touched;
+        private final long[] covered;
+
+        private Query(Day[] queried, long[] touched, long[] covered) {
+            this.queried = queried;
+            this.touched = touched;
+            this.covered = covered;
+        }
+
+        Answer check(Room room) {
+            Entry entry = current(room);
+            if (entry == null || entry.exact) {
+                return Answer.UNKNOWN;
+            }
+            int base = entry.number * wordsPerDay;
+            boolean partial = false;
+            for (int d = 0; d < queried.length; d++) {
+                AtomicLongArray words = queried[d].words;
+                if (words == null || base >= words.length()) {
+                    continue;
+                }
+                for (int w = 0; w < wordsPerDay; w++) {
+                    long bits = words.get(base + w);
+                    if ((bits & covered[d * wordsPerDay + w]) != 0) {
+                        return Answer.BUSY;
+                    }
+                    partial |= (bits & touched[d * wordsPerDay + w]) != 0;
+                }
+            }
+            return partial ? Answer.UNKNOWN : Answer.FREE;
+        }
+    }
+
+    /** Indexerad rumsinstans: dess nummer i dygnens bitset och antalet ändringar som indexerats. */
+    private static final class Entry {
+        final int number;
+        final Room room;
+        final long modifications;
+        // Rummet har bokningar som inte märks i bitseten och prövas alltid exakt
+        final boolean exact;
+
+        Entry(int number, Room room, long modifications, boolean exact) {
+            this.number = number;
+            this.room = room;
+            this.modifications = modifications;
+            this.exact = exact;
+        }
+    }
+
+    /** Ett dygns bitset för alla rum, rum efter rum. Växer när rum med högre nummer får bitar. */
+    private static final class Day {
+        volatile AtomicLongArray words;
+
+        void set(int base, int first, int last, boolean occupied, int wordsPerDay) {
+            AtomicLongArray current = words;
+            if (current == null || base + wordsPerDay > current.length()) {
+                if (!occupied) {
+                    return;
+                }
+                AtomicLongArray grown = new AtomicLongArray(Math.max(base + wordsPerDay,
+                        current == null ? 16 * wordsPerDay : current.length() * 2));
+                for (int i = 0; current != null && i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                words = grown;
+                current = grown;
+            }
+            for (int slot = first; slot <= last; slot++) {
+                int index = base + (slot >>> 6);
+                long bit = 1L << slot;
+                current.set(index, occupied ? current.get(index) | bit : current.get(index) & ~bit);
+            }
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * En återkommande bokning lagrad som en enda regel: första tillfället, en fast period och ett
+ * sista datum, plus de tillfällen som avbokats. Tillfällena skapas aldrig i förväg utan räknas
+ * fram först när en fråga behöver dem, så en serie kostar lika lite oavsett hur många tillfällen
+ * den har. Objektet är oföränderligt; {@link #withException(LocalDateTime)} ger en ny serie.
+ */
+public class RecurringBooking {
+    private final String id;
+    private final String roomId;
+    private final long startNanos;
+    private final long endNanos;
+    private final long periodNanos;
+    private final long lastIndex;
+    // Avbokade tillfällen som sorterade index räknat från första tillfället
+    private final long[] exceptions;
+
+    public RecurringBooking(String id, String roomId, LocalDateTime startTime, LocalDateTime endTime,
+                            Duration period, LocalDateTime until) {
+        this(id, roomId, checkedNanos(startTime), checkedNanos(endTime), periodNanos(period),
+                lastIndex(startTime, endTime, period, until), new long[0]);
+    }
+
+    /** Återskapar en sparad serie; {@code exceptions} ska vara sorterade tillfällesnummer. */
+    RecurringBooking(String id, String roomId, long startNanos, long endNanos,
+                     long periodNanos, long lastIndex, long[] exceptions) {
+        if (id == null) {
+            throw new IllegalArgumentException("Serie-id kan inte vara null");
+        }
+        if (endNanos < startNanos) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+        if (endNanos - startNanos >= periodNanos) {
+            throw new IllegalArgumentException("Ett tillfälle måste sluta innan nästa börjar");
+        }
+        this.id = id;
+        this.roomId = roomId;
+        this.startNanos = startNanos;
+        this.endNanos = endNanos;
+        this.periodNanos = periodNanos;
+        this.lastIndex = lastIndex;
+        this.exceptions = exceptions;
+    }
+
+    /** Samma tid varje dag till och med {@code until}. */
+    public static RecurringBooking daily(String id, String roomId, LocalDateTime startTime,
+                                         LocalDateTime endTime, LocalDateTime until) {
+        return new RecurringBooking(id, roomId, startTime, endTime, Duration.ofDays(1), until);
+    }
+
+    /** Samma tid varje vecka till och med {@code until}. */
+    public static RecurringBooking weekly(String id, String roomId, LocalDateTime startTime,
+                                          LocalDateTime endTime, LocalDateTime until) {
+        return new RecurringBooking(id, roomId, startTime, endTime, Duration.ofDays(7), until);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    /** Första tillfällets starttid. */
+    public LocalDateTime getStartTime() {
+        return Booking.toLocalDateTime(startNanos);
+    }
+
+    /** Första tillfällets sluttid. */
+    public LocalDateTime getEndTime() {
+        return Booking.toLocalDateTime(endNanos);
+    }
+
+    public Duration getPeriod() {
+        return Duration.ofNanos(periodNanos);
+    }
+
+    /** Sista tillfällets starttid, avbokat eller inte. */
+    public LocalDateTime getLastStartTime() {
+        return Booking.toLocalDateTime(occurrenceStart(lastIndex));
+    }
+
+    /** Starttiderna för de avbokade tillfällena, i tidsordning. */
+    public List<LocalDateTime> getExceptions() {
+        return Arrays.stream(exceptions).mapToObj(index -> Booking.toLocalDateTime(occurrenceStart(index))).toList();
+    }
+
+    /** Antal tillfällen som inte avbokats. */
+    public long size() {
+        return lastIndex + 1 - exceptions.length;
+    }
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return overlaps(Booking.toEpochNanos(start), Booking.toEpochNanos(end));
+    }
+
+    /**
+     * Sant om något tillfälle som inte avbokats överlappar det slutna intervallet [start, end].
+     * Första kandidaten räknas fram direkt, så kostnaden beror bara på hur många tillfällen som
+     * ligger i intervallet och inte på seriens längd.
+     */
+    boolean overlaps(long start, long end) {
+        for (long index = firstEndingAtOrAfter(start); index <= lastIndex; index++) {
+            if (occurrenceStart(index) > end) {
+                return false;
+            }
+            if (!isException(index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tillfällena som överlappar det halvöppna intervallet [from, to), i starttidsordning.
+     * Varje tillfälle är en {@link Booking} med id {@code <serie-id>#<nummer>}, räknat från 0.
+     */
+    public Stream<Booking> getOccurrences(LocalDateTime from, LocalDateTime to) {
+        Room.checkRange(from, to);
+        long fromNanos = Booking.toEpochNanos(from);
+        long toNanos = Booking.toEpochNanos(to);
+        return Room.stream(fromNanos >= toNanos ? Collections.emptyIterator() : occurrences(fromNanos, toNanos - 1));
+    }
+
+    /** Tillfällena som överlappar det slutna intervallet [start, end], lazy i starttidsordning. */
+    Iterator<Booking> occurrences(long start, long end) {
+        return new OccurrenceIterator(firstEndingAtOrAfter(start), end);
+    }
+
+    /** Sant om {@code start} är starttiden för ett tillfälle i serien som inte avbokats. */
+    public boolean hasOccurrence(LocalDateTime start) {
+        long index = indexOf(Booking.toEpochNanos(start));
+        return index >= 0 && !isException(index);
+    }
+
+    /** En kopia av serien där tillfället som börjar {@code occurrenceStart} är avbokat. */
+    public RecurringBooking withException(LocalDateTime occurrenceStart) {
+        long index = indexOf(Booking.toEpochNanos(occurrenceStart));
+        if (index < 0) {
+            throw new IllegalArgumentException("Serien har inget tillfälle vid " + occurrenceStart);
+        }
+        int position = Arrays.binarySearch(exceptions, index);
+        if (position >= 0) {
+            return this;
+        }
+        int insertAt = -position - 1;
+        long[] updated = new long[exceptions.length + 1];
+        System.arraycopy(exceptions, 0, updated, 0, insertAt);
+        updated[insertAt] = index;
+        System.arraycopy(exceptions, insertAt, updated, insertAt + 1, exceptions.length - insertAt);
+        return new RecurringBooking(id, roomId, startNanos, endNanos, periodNanos, lastIndex, updated);
+    }
+
+    /**
+     * En kopia av serien som slutar med sista tillfället som börjat före {@code time}, så det som
+     * redan passerat finns kvar. Null om inget tillfälle hunnit börja.
+     */
+    RecurringBooking endingBefore(LocalDateTime time) {
+        long firstUpcoming = firstStartingAtOrAfter(Booking.toEpochNanos(time));
+        if (firstUpcoming == 0) {
+            return null;
+        }
+        if (firstUpcoming > lastIndex) {
+            return this;
+        }
+        long last = firstUpcoming - 1;
+        long[] kept = Arrays.stream(exceptions).filter(index -> index <= last).toArray();
+        return new RecurringBooking(id, roomId, startNanos, endNanos, periodNanos, last, kept);
+    }
+
+    /** Första tillfället som inte avbokats och som börjar vid eller efter {@code time}, annars null. */
+    Booking firstOccurrenceFrom(LocalDateTime time) {
+        long index = firstStartingAtOrAfter(Booking.toEpochNanos(time));
+        while (index <= lastIndex && isException(index)) {
+            index++;
+        }
+        return index <= lastIndex ? occurrence(index) : null;
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    long endNanos() {
+        return endNanos;
+    }
+
+    long periodNanos() {
+        return periodNanos;
+    }
+
+    long lastIndex() {
+        return lastIndex;
+    }
+
+    /** Sista tillfällets sluttid, avbokat eller inte. */
+    long lastEndNanos() {
+        return occurrenceStart(lastIndex) + (endNanos - startNanos);
+    }
+
+    Booking firstOccurrence() {
+        return occurrence(0);
+    }
+
+    Booking occurrenceAt(LocalDateTime start) {
+        long index = indexOf(Booking.toEpochNanos(start));
+        if (index < 0) {
+            throw new IllegalArgumentException("Serien har inget tillfälle vid " + start);
+        }
+        return occurrence(index);
+    }
+
+    long[] exceptionIndexes() {
+        return exceptions.clone();
+    }
+
+    /** Tillfällets nummer om {@code start} är en starttid i serien, annars -1. */
+    private long indexOf(long start) {
+        long offset = start - startNanos;
+        if (offset < 0 || offset % periodNanos != 0 || offset / periodNanos > lastIndex) {
+            return -1;
+        }
+        return offset / periodNanos;
+    }
+
+    private long firstEndingAtOrAfter(long start) {
+        return start <= endNanos ? 0 : Math.ceilDiv(start - endNanos, periodNanos);
+    }
+
+    private long firstStartingAtOrAfter(long start) {
+        return start <= startNanos ? 0 : Math.ceilDiv(start - startNanos, periodNanos);
+    }
+
+    private boolean isException(long index) {
+        return exceptions.length > 0 && Arrays.binarySearch(exceptions, index) >= 0;
+    }
+
+    private long occurrenceStart(long index) {
+        return startNanos + index * periodNanos;
+    }
+
+    private Booking occurrence(long index) {
+        long start = occurrenceStart(index);
+        return new Booking(id + "#" + index, roomId, start, start + (endNanos - startNanos));
+    }
+
+    private static long checkedNanos(LocalDateTime time) {
+        if (time == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+        return Booking.toEpochNanos(time);
+    }
+
+    private static long periodNanos(Duration period) {
+        if (period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Perioden måste vara positiv");
+        }
+        return period.toNanos();
+    }
+
+    private static long lastIndex(LocalDateTime startTime, LocalDateTime endTime, Duration period, LocalDateTime until) {
+        if (until == null) {
+            throw new IllegalArgumentException("Serien måste ha ett slutdatum");
+        }
+        long start = checkedNanos(startTime);
+        long last = Booking.toEpochNanos(until);
+        if (last < start) {
+            throw new IllegalArgumentException("Serien måste sluta efter första tillfället");
+        }
+        // Sista tillfällets sluttid måste också rymmas i long-intervallet
+        long length = Math.max(0, checkedNanos(endTime) - start);
+        return (Math.min(last, Long.MAX_VALUE - length) - start) / periodNanos(period);
+    }
+
+    private final class OccurrenceIterator implements Iterator<Booking> {
+        private final long end;
+        private long index;
+
+        OccurrenceIterator(long index, long end) {
+            this.index = index;
+            this.end = end;
+            skipExceptions();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index <= lastIndex && occurrenceStart(index) <= end;
+        }
+
+        @Override
+        public Booking next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Booking result = occurrence(index++);
+            skipExceptions();
+            return result;
+        }
+
+        private void skipExceptions() {
+            while (index <= lastIndex && isException(index)) {
+                index++;
+            }
+        }
+    }
+}
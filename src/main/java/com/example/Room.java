@@ -1,13 +1,39 @@
 package com.example;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Room {
+    // Så många ändringar bakåt kan ett repository ligga innan det måste läsa om alla bokningar
+    static final int JOURNAL_CAPACITY = 1_024;
+
     private final String id;
     private final String name;
-    private final Set<Booking> bookings = new HashSet<>();
+    // Nycklas på Booking.idKey() så att id-strängarna inte behöver hållas kvar
+    private final Map<Object, Booking> bookingsById = new HashMap<>();
+    private BookingTree bookings = BookingTree.empty();
+    // Återkommande bokningar hålls som regler och expanderas först när en fråga behöver dem
+    private final Map<String, RecurringBooking> recurringById = new LinkedHashMap<>();
+    // Räknas upp vid varje tillagd eller borttagen bokning. De senaste ändringarna sparas i en
+    // journal så att varje repository kan uppdatera sitt index med det som ändrats sedan den version
+    // det själv senast läste. Journalen förs först när ett repository börjat läsa den.
+    private long version;
+    private ArrayDeque<Change> journal;
+    // Räknas upp vid varje ändring av bokningar eller serier, så att ett förberäknat index kan se
+    // om rummet ändrats sedan det lästes
+    private volatile long modifications;
 
     public Room(String id, String name) {
         this.id = id;
@@ -15,29 +41,184 @@ public class Room {
     }
 
     public boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
-        return bookings.stream()
-                .noneMatch(booking ->
-                        booking.overlaps(startTime, endTime));
+        return isAvailable(Booking.toEpochNanos(startTime), Booking.toEpochNanos(endTime));
+    }
+
+    synchronized boolean isAvailable(long start, long end) {
+        for (RecurringBooking series : recurringById.values()) {
+            if (series.overlaps(start, end)) {
+                return false;
+            }
+        }
+        return !bookings.overlapsAny(start, end);
+    }
+
+    public synchronized void addBooking(Booking booking) {
+        Booking previous = bookingsById.put(booking.idKey(), booking);
+        if (previous != null) {
+            bookings = bookings.remove(previous);
+        }
+        bookings = bookings.insert(booking);
+        record(booking, true);
+    }
+
+    public synchronized void removeBooking(String bookingId) {
+        Booking removed = bookingsById.remove(Booking.idKey(bookingId));
+        if (removed != null) {
+            bookings = bookings.remove(removed);
+            record(removed, false);
+        }
+    }
+
+    /**
+     * Bokningarna som lagts till och tagits bort sedan {@code since}, en version som ett tidigare
+     * anrop returnerat. Räcker journalen inte så långt tillbaka, eller är {@code since} negativ,
+     * blir svaret i stället fullständigt med alla rummets bokningar. Börjar föra journalen vid
+     * första anropet. Anroparen får inte ändra något i rummet.
+     */
+    synchronized BookingIndex.Delta changesSince(long since) {
+        if (journal == null) {
+            journal = new ArrayDeque<>();
+        }
+        if (since < version - journal.size()) {
+            return BookingIndex.Delta.complete(version, List.copyOf(bookingsById.values()));
+        }
+        Map<Object, Booking> added = new LinkedHashMap<>();
+        Map<Object, Booking> removed = new LinkedHashMap<>();
+        long skip = journal.size() - (version - since);
+        for (Change change : journal) {
+            if (skip-- > 0) {
+                continue;
+            }
+            Object key = change.booking.idKey();
+            if (change.added) {
+                removed.remove(key);
+                added.put(key, change.booking);
+            } else {
+                added.remove(key);
+                removed.put(key, change.booking);
+            }
+        }
+        return new BookingIndex.Delta(version, false, List.copyOf(added.values()), List.copyOf(removed.keySet()));
+    }
+
+    /** Antal ändringar av rummets bokningar och serier hittills. */
+    long modificationCount() {
+        return modifications;
+    }
+
+    private void record(Booking booking, boolean added) {
+        version++;
+        modifications++;
+        if (journal != null) {
+            if (journal.size() == JOURNAL_CAPACITY) {
+                journal.removeFirst();
+            }
+            journal.addLast(new Change(booking, added));
+        }
+    }
+
+    public synchronized boolean hasBooking(String bookingId) {
+        return bookingsById.containsKey(Booking.idKey(bookingId));
+    }
+
+    public synchronized Booking getBooking(String bookingId) {
+        Booking booking = bookingsById.get(Booking.idKey(bookingId));
+        if (booking == null) {
+            throw new IllegalArgumentException("Bokning finns inte");
+        }
+        return booking;
     }
 
-    public void addBooking(Booking booking) {
-        bookings.add(booking);
+    /** Rummets enskilda bokningar; återkommande bokningar finns i {@link #getRecurringBookings()}. */
+    public synchronized Collection<Booking> getBookings() {
+        return List.copyOf(bookingsById.values());
     }
 
-    public void removeBooking(String bookingId) {
-        bookings.removeIf(booking -> booking.getId().equals(bookingId));
+    /** Lägger till serien, eller ersätter den som har samma id. */
+    public synchronized void addRecurringBooking(RecurringBooking series) {
+        recurringById.put(series.getId(), series);
+        modifications++;
     }
 
-    public boolean hasBooking(String bookingId) {
-        return bookings.stream()
-                .anyMatch(booking -> booking.getId().equals(bookingId));
+    public synchronized boolean removeRecurringBooking(String seriesId) {
+        if (recurringById.remove(seriesId) == null) {
+            return false;
+        }
+        modifications++;
+        return true;
     }
 
-    public Booking getBooking(String bookingId) {
-        return bookings.stream()
-                .filter(booking -> booking.getId().equals(bookingId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Bokning finns inte"));
+    /**
+     * Avbokar ett enskilt tillfälle i serien. Tillfället läggs bara till som undantag i regeln,
+     * så det kostar lika lite oavsett hur lång serien är. Falskt om serien inte finns eller
+     * tillfället redan var avbokat.
+     */
+    public synchronized boolean cancelOccurrence(String seriesId, LocalDateTime occurrenceStart) {
+        RecurringBooking series = recurringById.get(seriesId);
+        if (series == null || !series.hasOccurrence(occurrenceStart)) {
+            return false;
+        }
+        recurringById.put(seriesId, series.withException(occurrenceStart));
+        modifications++;
+        return true;
+    }
+
+    public synchronized boolean hasRecurringBooking(String seriesId) {
+        return recurringById.containsKey(seriesId);
+    }
+
+    public synchronized RecurringBooking getRecurringBooking(String seriesId) {
+        RecurringBooking series = recurringById.get(seriesId);
+        if (series == null) {
+            throw new IllegalArgumentException("Serien finns inte");
+        }
+        return series;
+    }
+
+    public synchronized Collection<RecurringBooking> getRecurringBookings() {
+        return List.copyOf(recurringById.values());
+    }
+
+    /**
+     * Bokningarna som överlappar det halvöppna intervallet [from, to), i starttidsordning, inklusive
+     * tillfällen ur återkommande bokningar. Strömmen läses lazy ur en ögonblicksbild av rummets
+     * bokningar, så senare ändringar syns inte i den.
+     */
+    public Stream<Booking> getBookings(LocalDateTime from, LocalDateTime to) {
+        checkRange(from, to);
+        return stream(bookingsBetween(Booking.toEpochNanos(from), Booking.toEpochNanos(to)));
+    }
+
+    /** Som {@link #getBookings(LocalDateTime, LocalDateTime)} men med tiderna i epok-nanosekunder. */
+    synchronized Iterator<Booking> bookingsBetween(long from, long to) {
+        if (from >= to) {
+            return Collections.emptyIterator();
+        }
+        // Bokningar är slutna intervall, så [from, to) motsvarar [from, to - 1] på nanosekunden
+        if (recurringById.isEmpty()) {
+            return bookings.overlapping(from, to - 1);
+        }
+        List<Iterator<Booking>> sources = new ArrayList<>(recurringById.size() + 1);
+        sources.add(bookings.overlapping(from, to - 1));
+        for (RecurringBooking series : recurringById.values()) {
+            sources.add(series.occurrences(from, to - 1));
+        }
+        return new MergedBookingIterator(sources);
+    }
+
+    static void checkRange(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+    }
+
+    static Stream<Booking> stream(Iterator<Booking> bookings) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(bookings,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
     }
 
     public String getId() {
@@ -47,4 +228,14 @@ public class Room {
     public String getName() {
         return name;
     }
+
+    private static final class Change {
+        final Booking booking;
+        final boolean added;
+
+        Change(Booking booking, boolean added) {
+            this.booking = booking;
+            this.added = added;
+        }
+    }
 }
@@ -7,4 +7,14 @@ public interface RoomRepository {
     Optional<Room> findById(String id);
     List<Room> findAll();
     void save(Room room);
+
+    /** Tar bort rummet och dess bokningar. Gör ingenting om rummet inte finns. */
+    void delete(String id);
+
+    /** Hittar rummet som innehåller bokningen. Implementationer med index bör överskugga denna. */
+    default Optional<Room> findByBookingId(String bookingId) {
+        return findAll().stream()
+                .filter(room -> room.hasBooking(bookingId))
+                .findFirst();
+    }
 }
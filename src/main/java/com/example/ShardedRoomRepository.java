@@ -0,0 +1,308 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Fördelar rummen över flera {@link RoomRepository} med konsistent hashning. Varje delrepository
+ * (shard) får {@code virtualNodes} positioner på en hashring och ett rum hamnar hos första
+ * position medurs från rum-id:ts hash. {@link #findById} och {@link #save} går därför till exakt
+ * en shard, medan {@link #findAll()} frågar alla shards parallellt och slår ihop svaren.
+ * <p>
+ * När en shard läggs till eller tas bort flyttas bara rummen på de bågar av ringen som bytt
+ * ägare, i genomsnitt en N:te del av rummen. Under en omfördelning väntar övriga anrop.
+ * Rummen kopieras först till sina nya shards; misslyckas det tas kopiorna bort igen och ringen
+ * lämnas orörd. Först när alla kopior finns byts ringen och originalen tas bort.
+ */
+public class ShardedRoomRepository implements RoomRepository {
+    static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().start(task);
+
+    private final int virtualNodes;
+    // Läsare och skrivare routar under läslåset; omfördelning tar skrivlåset
+    private final ReentrantReadWriteLock rebalanceLock = new ReentrantReadWriteLock();
+    private volatile Ring ring;
+
+    public ShardedRoomRepository(Map<String, ? extends RoomRepository> shards) {
+        this(shards, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /** @param shards delrepositoryn per shardnamn; namnen bestämmer positionerna på ringen */
+    public ShardedRoomRepository(Map<String, ? extends RoomRepository> shards, int virtualNodes) {
+        if (shards == null || shards.isEmpty()) {
+            throw new IllegalArgumentException("Måste ange minst en shard");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Antal virtuella noder måste vara positivt");
+        }
+        this.virtualNodes = virtualNodes;
+        this.ring = new Ring(new LinkedHashMap<>(shards), virtualNodes);
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        rebalanceLock.readLock().lock();
+        try {
+            return ring.shardFor(id).findById(id);
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Room> findAll() {
+        rebalanceLock.readLock().lock();
+        try {
+            List<Room> rooms = new ArrayList<>();
+            for (List<Room> shardRooms : scatter(RoomRepository::findAll)) {
+                rooms.addAll(shardRooms);
+            }
+            return rooms;
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void save(Room room) {
+        rebalanceLock.readLock().lock();
+        try {
+            ring.shardFor(room.getId()).save(room);
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(String id) {
+        rebalanceLock.readLock().lock();
+        try {
+            ring.shardFor(id).delete(id);
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    /** Boknings-id säger inget om rummet, så alla shards frågas parallellt. */
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        rebalanceLock.readLock().lock();
+        try {
+            for (Optional<Room> found : scatter(shard -> shard.findByBookingId(bookingId))) {
+                if (found.isPresent()) {
+                    return found;
+                }
+            }
+            return Optional.empty();
+        } finally {
+            rebalanceLock.readLock().unlock();
+        }
+    }
+
+    /** Lägger till en shard och flyttar dit de rum som nu hör till den. Returnerar antalet flyttade rum. */
+    public int addShard(String name, RoomRepository shard) {
+        if (name == null || shard == null) {
+            throw new IllegalArgumentException("Shard kräver namn och repository");
+        }
+        rebalanceLock.writeLock().lock();
+        try {
+            Map<String, RoomRepository> shards = new LinkedHashMap<>(ring.shards);
+            if (shards.putIfAbsent(name, shard) != null) {
+                throw new IllegalArgumentException("Sharden finns redan: " + name);
+            }
+            return rebalance(ring.shards.values(), new Ring(shards, virtualNodes));
+        } finally {
+            rebalanceLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tar bort en shard och fördelar dess rum på de shards som tar över dess bågar av ringen.
+     * Övriga rum ligger kvar. Returnerar antalet flyttade rum.
+     */
+    public int removeShard(String name) {
+        rebalanceLock.writeLock().lock();
+        try {
+            Map<String, RoomRepository> shards = new LinkedHashMap<>(ring.shards);
+            RoomRepository removed = shards.remove(name);
+            if (removed == null) {
+                throw new IllegalArgumentException("Sharden finns inte: " + name);
+            }
+            if (shards.isEmpty()) {
+                throw new IllegalArgumentException("Kan inte ta bort sista sharden");
+            }
+            return rebalance(List.of(removed), new Ring(shards, virtualNodes));
+        } finally {
+            rebalanceLock.writeLock().unlock();
+        }
+    }
+
+    /** Shardnamnen i den ordning de lades till. */
+    public List<String> getShardNames() {
+        return List.copyOf(ring.shards.keySet());
+    }
+
+    /** Namnet på sharden som äger rummet. */
+    public String shardNameFor(String roomId) {
+        return ring.ownerOf(roomId);
+    }
+
+    /**
+     * Flyttar rummen i {@code sources} som inte längre hör dit enligt {@code next} och byter till
+     * den ringen. Anropas under skrivlåset. Går det inte att ta bort ett original efter bytet
+     * ligger det kvar som en extra kopia i den gamla sharden och felet kastas när resten flyttats.
+     */
+    private int rebalance(Collection<RoomRepository> sources, Ring next) {
+        List<Move> moves = new ArrayList<>();
+        for (RoomRepository source : sources) {
+            for (Room room : source.findAll()) {
+                RoomRepository target = next.shardFor(room.getId());
+                if (target != source) {
+                    moves.add(new Move(room, source, target));
+                }
+            }
+        }
+
+        copyAll(moves);
+        ring = next;
+
+        RuntimeException failure = null;
+        for (Move move : moves) {
+            try {
+                move.source.delete(move.room.getId());
+            } catch (RuntimeException e) {
+                failure = addFailure(failure, e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return moves.size();
+    }
+
+    /** Sparar rummen i sina nya shards. Misslyckas en sparning tas de kopior som hunnit sparas bort. */
+    private static void copyAll(List<Move> moves) {
+        int copied = 0;
+        try {
+            for (Move move : moves) {
+                move.target.save(move.room);
+                copied++;
+            }
+        } catch (RuntimeException e) {
+            for (Move move : moves.subList(0, copied)) {
+                try {
+                    move.target.delete(move.room.getId());
+                } catch (RuntimeException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private static RuntimeException addFailure(RuntimeException first, RuntimeException next) {
+        if (first == null) {
+            return next;
+        }
+        first.addSuppressed(next);
+        return first;
+    }
+
+    /** Anropar alla shards parallellt på virtuella trådar och returnerar svaren i shardordning. */
+    private <T> List<T> scatter(Function<RoomRepository, T> query) {
+        List<CompletableFuture<T>> pending = new ArrayList<>();
+        for (RoomRepository shard : ring.shards.values()) {
+            pending.add(CompletableFuture.supplyAsync(() -> query.apply(shard), VIRTUAL_THREADS));
+        }
+        List<T> results = new ArrayList<>(pending.size());
+        try {
+            for (CompletableFuture<T> future : pending) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    static long hash(String key) {
+        // FNV-1a följt av MurmurHash3:s finalizer så att närliggande id sprids över hela ringen
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : String.valueOf(key).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /** Ett rum som ska flyttas från {@code source} till {@code target}. */
+    private static final class Move {
+        final Room room;
+        final RoomRepository source;
+        final RoomRepository target;
+
+        Move(Room room, RoomRepository source, RoomRepository target) {
+            this.room = room;
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    /** Oföränderlig hashring: sorterade positioner och shardnamnet som äger varje position. */
+    private static final class Ring {
+        final Map<String, RoomRepository> shards;
+        final long[] positions;
+        final String[] owners;
+
+        Ring(Map<String, RoomRepository> shards, int virtualNodes) {
+            this.shards = shards;
+            long[][] nodes = new long[shards.size() * virtualNodes][];
+            List<String> names = new ArrayList<>(shards.keySet());
+            int n = 0;
+            for (int s = 0; s < names.size(); s++) {
+                for (int v = 0; v < virtualNodes; v++) {
+                    nodes[n++] = new long[] {hash(names.get(s) + "#" + v), s};
+                }
+            }
+            Arrays.sort(nodes, (a, b) -> Long.compare(a[0], b[0]));
+            this.positions = new long[nodes.length];
+            this.owners = new String[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                positions[i] = nodes[i][0];
+                owners[i] = names.get((int) nodes[i][1]);
+            }
+        }
+
+        String ownerOf(String roomId) {
+            int index = Arrays.binarySearch(positions, hash(roomId));
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return owners[index == positions.length ? 0 : index];
+        }
+
+        RoomRepository shardFor(String roomId) {
+            return shards.get(ownerOf(roomId));
+        }
+    }
+}
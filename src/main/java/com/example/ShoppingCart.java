@@ -1,54 +1,96 @@
 package com.example;
 
+import com.example.pricing.PricingPlan;
+
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Shopping cart that keeps its total up to date as lines change, so pricing it costs O(1).
+ *
+ * <p>A line takes its unit price from the item when the line is created and keeps it until the
+ * line is removed. Later calls to {@link Item#setPrice} do not change the total, and adding an
+ * equal item (same name) with a different price charges the price the line already has.
+ */
 public class ShoppingCart {
 
-    private Map<Item, Integer> items;
+    private final CartLines items;
+    // Running total in whole cents, kept exact so it never has to be recomputed from the lines
+    private long totalCents;
+    private double discountRate;
 
     public ShoppingCart() {
-        items = new HashMap<>();
+        items = new CartLines();
     }
 
     public void addItem(Item item) {
         if (item == null) {
             throw new IllegalArgumentException("Item cannot be null");
         }
-        items.put(item, items.getOrDefault(item, 0) + 1);
+        int line = items.indexOf(item);
+        if (line < 0) {
+            line = items.insert(item, toCents(item.getPrice()));
+        }
+        totalCents = Math.addExact(totalCents, items.unitCentsAt(line));
+        items.setQuantityAt(line, items.quantityAt(line) + 1);
     }
 
     public void removeItem(Item item) {
         if (item == null) {
             throw new IllegalArgumentException("Item cannot be null");
         }
-        if (!items.containsKey(item)) {
+        int line = items.indexOf(item);
+        if (line < 0) {
             throw new IllegalArgumentException("Item not in cart");
         }
-        int quantity = items.get(item);
+        totalCents -= items.unitCentsAt(line);
+        int quantity = items.quantityAt(line);
         if (quantity == 1) {
-            items.remove(item);
+            items.removeAt(line);
         } else {
-            items.put(item, quantity - 1);
+            items.setQuantityAt(line, quantity - 1);
         }
     }
 
     public double calculateTotalPrice() {
-        return items.entrySet().stream()
-                .mapToDouble(e -> e.getKey().getPrice() * e.getValue())
-                .sum();
+        return applyDiscountRate(totalCents, discountRate) / 100.0;
+    }
+
+    /** Prices the cart with {@code plan} in one pass over the lines, then applies the cart discount. */
+    public double calculateTotalPrice(PricingPlan plan) {
+        PricingPlan.Evaluation evaluation = plan.evaluate();
+        for (int line = 0; line < items.capacity(); line++) {
+            Item item = items.keyAt(line);
+            if (item != null) {
+                evaluation.addLine(item, items.quantityAt(line), items.unitCentsAt(line));
+            }
+        }
+        return applyDiscountRate(evaluation.totalCents(), discountRate) / 100.0;
     }
 
+    /** Sets the discount taken off the cart total. Item prices are left untouched. */
     public void applyDiscount(double discountRate) {
-        items.keySet().forEach(item -> item.setPrice(item.getPrice() * (1 - discountRate)));
+        this.discountRate = checkDiscountRate(discountRate);
     }
 
     public Map<Item, Integer> getItems() {
-        return items;
+        Map<Item, Integer> quantities = new HashMap<>();
+        for (int line = 0; line < items.capacity(); line++) {
+            Item item = items.keyAt(line);
+            if (item != null) {
+                quantities.put(item, items.quantityAt(line));
+            }
+        }
+        return Collections.unmodifiableMap(quantities);
     }
 
     public int getItemQuantity(Item item) {
-        return items.getOrDefault(item, 0);
+        if (item == null) {
+            return 0;
+        }
+        int line = items.indexOf(item);
+        return line < 0 ? 0 : items.quantityAt(line);
     }
 
     public void updateQuantity(Item item, int quantity) {
@@ -58,10 +100,34 @@ public class ShoppingCart {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
+        int line = items.indexOf(item);
+        if (line < 0) {
+            if (quantity == 0) {
+                return;
+            }
+            line = items.insert(item, toCents(item.getPrice()));
+        }
+        long delta = Math.multiplyExact(items.unitCentsAt(line), (long) quantity - items.quantityAt(line));
+        totalCents = Math.addExact(totalCents, delta);
         if (quantity == 0) {
-            items.remove(item);
+            items.removeAt(line);
         } else {
-            items.put(item, quantity);
+            items.setQuantityAt(line, quantity);
+        }
+    }
+
+    static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    static double checkDiscountRate(double discountRate) {
+        if (discountRate < 0 || discountRate > 1) {
+            throw new IllegalArgumentException("Discount rate must be between 0 and 1");
         }
+        return discountRate;
+    }
+
+    static long applyDiscountRate(long cents, double discountRate) {
+        return discountRate == 0 ? cents : Math.round(cents * (1 - discountRate));
     }
 }
@@ -1,7 +1,16 @@
 package com.example;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public interface TimeProvider {
     LocalDateTime getCurrentTime();
+
+    /**
+     * Aktuell tid som millisekunder sedan 1970-01-01T00:00, räknat på den lokala tiden utan
+     * tidszon på samma sätt som {@link Booking} lagrar sina tider.
+     */
+    default long getCurrentTimeMillis() {
+        return getCurrentTime().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
 }
@@ -0,0 +1,21 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+final class AdderCounter implements Counter {
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    public void increment() {
+        count.increment();
+    }
+
+    @Override
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    long count() {
+        return count.sum();
+    }
+}
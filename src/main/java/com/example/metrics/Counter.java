@@ -0,0 +1,8 @@
+package com.example.metrics;
+
+/** A count of events, such as successful or rejected bookings. */
+public interface Counter {
+    void increment();
+
+    void add(long amount);
+}
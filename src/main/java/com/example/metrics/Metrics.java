@@ -0,0 +1,14 @@
+package com.example.metrics;
+
+/**
+ * Source of the counters and timers that instrumented classes record to. Instrumented classes
+ * look their meters up once, when they are created, so recording costs no map lookups.
+ */
+public interface Metrics {
+    /** Metrics that record nothing; the default for instrumented classes. */
+    Metrics NOOP = new NoopMetrics();
+
+    Counter counter(String name);
+
+    Timer timer(String name);
+}
@@ -0,0 +1,8 @@
+package com.example.metrics;
+
+/** Receives the current value of every meter in a {@link MetricsRegistry}, e.g. to publish them. */
+public interface MetricsExporter {
+    void exportCounter(String name, long count);
+
+    void exportHistogram(String name, LatencyHistogram histogram);
+}
@@ -0,0 +1,38 @@
+package com.example.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Keeps every counter and timer by name, creating them on first use. */
+public class MetricsRegistry implements Metrics {
+    private final Map<String, AdderCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new AdderCounter());
+    }
+
+    @Override
+    public LatencyHistogram timer(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /** The count recorded by the counter with this name, or 0 if there is none. */
+    public long getCount(String name) {
+        AdderCounter counter = counters.get(name);
+        return counter == null ? 0 : counter.count();
+    }
+
+    /** The histogram behind the timer with this name, or {@code null} if there is none. */
+    public LatencyHistogram getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /** Hands every meter to {@code exporter}, counters first, each kind sorted by name. */
+    public void export(MetricsExporter exporter) {
+        new TreeMap<>(counters).forEach((name, counter) -> exporter.exportCounter(name, counter.count()));
+        new TreeMap<>(histograms).forEach(exporter::exportHistogram);
+    }
+}
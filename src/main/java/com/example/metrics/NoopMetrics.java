@@ -0,0 +1,39 @@
+package com.example.metrics;
+
+final class NoopMetrics implements Metrics {
+    private static final Counter COUNTER = new Counter() {
+        @Override
+        public void increment() {
+        }
+
+        @Override
+        public void add(long amount) {
+        }
+    };
+
+    private static final Timer TIMER = new Timer() {
+        @Override
+        public long start() {
+            return 0;
+        }
+
+        @Override
+        public void stop(long start) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    @Override
+    public Counter counter(String name) {
+        return COUNTER;
+    }
+
+    @Override
+    public Timer timer(String name) {
+        return TIMER;
+    }
+}
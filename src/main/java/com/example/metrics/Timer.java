@@ -0,0 +1,29 @@
+package com.example.metrics;
+
+/**
+ * Measures how long an operation takes:
+ * <pre>{@code
+ * long start = timer.start();
+ * try {
+ *     ...
+ * } finally {
+ *     timer.stop(start);
+ * }
+ * }</pre>
+ * A disabled timer does not read the clock at all.
+ */
+public interface Timer {
+    /** The current time in nanoseconds, to be passed to {@link #stop}. */
+    long start();
+
+    /** Records the time elapsed since {@code start}. */
+    void stop(long start);
+
+    /**
+     * Whether this timer records anything. Callers that do extra work only to decide what to
+     * time, such as sampling, can check this once and skip that work.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+}
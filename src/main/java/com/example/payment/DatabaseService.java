@@ -1,6 +1,15 @@
 package com.example.payment;
 
+import java.util.List;
+
  /** Interface för Database */
     public interface DatabaseService {
         void savePayment(double amount, String status);
+
+        /** Sparar flera betalningar på en gång. Implementationer som kan skriva i bulk bör överskugga denna. */
+        default void savePayments(List<PaymentRecord> payments) {
+            for (PaymentRecord payment : payments) {
+                savePayment(payment.getAmount(), payment.getStatus());
+            }
+        }
     }
@@ -0,0 +1,226 @@
+package com.example.payment;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the response to each charge by a caller-supplied idempotency key, so a retried request
+ * is answered from memory instead of charging again. A request arriving while the first call for
+ * its key is still running waits for that call and shares its response. Charges that throw are
+ * not remembered, so they can be retried.
+ *
+ * <p>Responses expire {@code expireAfterWrite} after the payment was settled. Beyond
+ * {@code maximumSize} keys the oldest settled entries are evicted first. Payments that were
+ * charged but never settled are kept for retries and evicted, oldest first, only once no settled
+ * entry is left. Charges still in flight are never evicted, so the cache can exceed
+ * {@code maximumSize} by at most the number of concurrent charges.
+ */
+public class IdempotencyCache {
+    private final int maximumSize;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Settled entries in the order they were settled, which is also the order they expire in
+    private final ConcurrentLinkedQueue<Entry> settledOrder = new ConcurrentLinkedQueue<>();
+    private final Set<Entry> unsettled = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotencyCache(int maximumSize, Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, System::nanoTime);
+    }
+
+    public IdempotencyCache(int maximumSize, Duration expireAfterWrite, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        if (expireAfterWrite.isNegative() || expireAfterWrite.isZero()) {
+            throw new IllegalArgumentException("Expiry must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns the remembered response for {@code key}, or calls {@code charge} if there is none.
+     *
+     * @throws IllegalArgumentException if the key was already used for a different amount
+     */
+    public PaymentApiResponse getOrCharge(String key, double amount, Supplier<PaymentApiResponse> charge) {
+        return getOrCharge(key, amount, charge, response -> { });
+    }
+
+    /**
+     * Like {@link #getOrCharge(String, double, Supplier)}, but also runs {@code settle}, such as
+     * saving and confirming the payment, as part of the same idempotent unit. Until {@code settle}
+     * has returned normally once, every call for the key runs it again with the remembered
+     * response, so a retry finishes a charged payment instead of charging it twice. Calls return
+     * only after the payment is settled.
+     *
+     * @throws IllegalArgumentException if the key was already used for a different amount
+     */
+    public PaymentApiResponse getOrCharge(String key, double amount, Supplier<PaymentApiResponse> charge,
+                                          Consumer<PaymentApiResponse> settle) {
+        if (key == null) {
+            throw new IllegalArgumentException("Idempotency key cannot be null");
+        }
+        while (true) {
+            Entry existing = entries.get(key);
+            if (existing != null && !existing.isExpired(ticker.getAsLong())) {
+                if (Double.compare(existing.amount, amount) != 0) {
+                    throw new IllegalArgumentException("Idempotency key already used for a different amount");
+                }
+                hits.increment();
+                PaymentApiResponse response = await(existing.response);
+                settle(existing, response, settle);
+                return response;
+            }
+            Entry created = new Entry(key, amount, sequence.incrementAndGet());
+            boolean claimed = existing == null
+                    ? entries.putIfAbsent(key, created) == null
+                    : entries.replace(key, existing, created);
+            if (claimed) {
+                misses.increment();
+                unsettled.add(created);
+                evict();
+                PaymentApiResponse response = charge(created, charge);
+                settle(created, response, settle);
+                return response;
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private PaymentApiResponse charge(Entry entry, Supplier<PaymentApiResponse> charge) {
+        PaymentApiResponse response;
+        try {
+            response = charge.get();
+        } catch (RuntimeException e) {
+            entries.remove(entry.key, entry);
+            unsettled.remove(entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+        entry.response.complete(response);
+        return response;
+    }
+
+    private void settle(Entry entry, PaymentApiResponse response, Consumer<PaymentApiResponse> settle) {
+        if (entry.settled) {
+            return;
+        }
+        entry.settling.lock();
+        try {
+            if (!entry.settled) {
+                settle.accept(response);
+                entry.completedAt = ticker.getAsLong();
+                entry.settled = true;
+                unsettled.remove(entry);
+                settledOrder.add(entry);
+            }
+        } finally {
+            entry.settling.unlock();
+        }
+    }
+
+    private void evict() {
+        // One thread evicts at a time; the others leave the work to it rather than wait
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = ticker.getAsLong();
+            Entry oldest;
+            while ((oldest = settledOrder.peek()) != null) {
+                boolean live = entries.get(oldest.key) == oldest;
+                if (live && !oldest.isExpired(now) && entries.size() <= maximumSize) {
+                    return;
+                }
+                settledOrder.poll();
+                if (live && entries.remove(oldest.key, oldest)) {
+                    evictions.increment();
+                }
+            }
+            // Only unsettled entries are left; drop the oldest charged ones, which nobody retried
+            while (entries.size() > maximumSize) {
+                Entry abandoned = null;
+                for (Entry entry : unsettled) {
+                    if (entry.response.isDone() && (abandoned == null || entry.sequence < abandoned.sequence)) {
+                        abandoned = entry;
+                    }
+                }
+                if (abandoned == null) {
+                    return;
+                }
+                unsettled.remove(abandoned);
+                if (entries.remove(abandoned.key, abandoned)) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static PaymentApiResponse await(CompletableFuture<PaymentApiResponse> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private final class Entry {
+        final String key;
+        final double amount;
+        final long sequence;
+        final CompletableFuture<PaymentApiResponse> response = new CompletableFuture<>();
+        final ReentrantLock settling = new ReentrantLock();
+        // Written before settled, so anyone who sees the entry settled also sees the time
+        long completedAt;
+        volatile boolean settled;
+
+        Entry(String key, double amount, long sequence) {
+            this.key = key;
+            this.amount = amount;
+            this.sequence = sequence;
+        }
+
+        boolean isExpired(long now) {
+            return settled && now - completedAt >= expireAfterWriteNanos;
+        }
+    }
+}
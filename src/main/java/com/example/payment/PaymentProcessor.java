@@ -1,26 +1,304 @@
 package com.example.payment;
 
+import com.example.metrics.Counter;
+import com.example.metrics.Metrics;
+import com.example.metrics.Timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
 public class PaymentProcessor {
+    static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    static final int DEFAULT_BATCH_SIZE = 500;
+    static final int DEFAULT_IDEMPOTENCY_KEYS = 100_000;
+    static final Duration DEFAULT_IDEMPOTENCY_EXPIRY = Duration.ofHours(24);
+
+    private static final String CONFIRMATION_EMAIL = "user@example.com";
+    private static final ChargedPayment END_OF_STREAM = new ChargedPayment(-1, null);
+    private static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().start(task);
+
     private final PaymentService paymentService;
     private final DatabaseService databaseService;
     private final EmailService emailService;
     private final String apiKey;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final IdempotencyCache idempotencyCache;
+
+    private final Timer processTimer;
+    private final Timer chargeTimer;
+    private final Counter succeeded;
+    private final Counter declined;
+    private final Counter chargeFailures;
+    private final Counter confirmationFailures;
 
     public PaymentProcessor(PaymentService paymentService, DatabaseService databaseService, EmailService emailService, String apiKey) {
+        this(paymentService, databaseService, emailService, apiKey, DEFAULT_MAX_IN_FLIGHT, DEFAULT_BATCH_SIZE);
+    }
+
+    public PaymentProcessor(PaymentService paymentService, DatabaseService databaseService, EmailService emailService,
+                            String apiKey, IdempotencyCache idempotencyCache) {
+        this(paymentService, databaseService, emailService, apiKey, DEFAULT_MAX_IN_FLIGHT, DEFAULT_BATCH_SIZE,
+                idempotencyCache);
+    }
+
+    public PaymentProcessor(PaymentService paymentService, DatabaseService databaseService, EmailService emailService,
+                            String apiKey, Metrics metrics) {
+        this(paymentService, databaseService, emailService, apiKey, DEFAULT_MAX_IN_FLIGHT, DEFAULT_BATCH_SIZE,
+                new IdempotencyCache(DEFAULT_IDEMPOTENCY_KEYS, DEFAULT_IDEMPOTENCY_EXPIRY), metrics);
+    }
+
+    public PaymentProcessor(PaymentService paymentService, DatabaseService databaseService, EmailService emailService,
+                            String apiKey, int maxInFlight, int batchSize) {
+        this(paymentService, databaseService, emailService, apiKey, maxInFlight, batchSize,
+                new IdempotencyCache(DEFAULT_IDEMPOTENCY_KEYS, DEFAULT_IDEMPOTENCY_EXPIRY));
+    }
+
+    public PaymentProcessor(PaymentService paymentService, DatabaseService databaseService, EmailService emailService,
+                            String apiKey, int maxInFlight, int batchSize, IdempotencyCache idempotencyCache) {
+        this(paymentService, databaseService, emailService, apiKey, maxInFlight, batchSize, idempotencyCache,
+                Metrics.NOOP);
+    }
+
+    public PaymentProcessor(PaymentService paymentService, DatabaseService databaseService, EmailService emailService,
+                            String apiKey, int maxInFlight, int batchSize, IdempotencyCache idempotencyCache,
+                            Metrics metrics) {
+        if (maxInFlight < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("In-flight limit and batch size must be positive");
+        }
         this.paymentService = paymentService;
         this.databaseService = databaseService;
         this.emailService = emailService;
         this.apiKey = apiKey;
+        this.maxInFlight = maxInFlight;
+        this.batchSize = batchSize;
+        this.idempotencyCache = idempotencyCache;
+        this.processTimer = metrics.timer("payment.process");
+        this.chargeTimer = metrics.timer("payment.charge");
+        this.succeeded = metrics.counter("payment.succeeded");
+        this.declined = metrics.counter("payment.declined");
+        this.chargeFailures = metrics.counter("payment.chargeFailures");
+        this.confirmationFailures = metrics.counter("payment.confirmationFailures");
     }
 
     public boolean processPayment(double amount) {
-        PaymentApiResponse response = paymentService.charge(apiKey, amount);
+        long start = processTimer.start();
+        try {
+            return complete(amount, charge(amount));
+        } finally {
+            processTimer.stop(start);
+        }
+    }
+
+    /**
+     * Like {@link #processPayment(double)}, but safe to retry: a payment is charged, saved and
+     * confirmed only once per {@code idempotencyKey}, and repeats are answered from memory. If
+     * saving or confirming fails, a retry with the same key finishes the payment without charging
+     * it again.
+     */
+    public boolean processPayment(String idempotencyKey, double amount) {
+        long start = processTimer.start();
+        try {
+            PaymentApiResponse response = idempotencyCache.getOrCharge(idempotencyKey, amount,
+                    () -> charge(amount), charged -> complete(amount, charged));
+            return response.isSuccess();
+        } finally {
+            processTimer.stop(start);
+        }
+    }
+
+    /**
+     * Like {@link #processPayment(double)} but without blocking the caller: charges through
+     * {@link PaymentService#chargeAsync} and then saves and confirms the payment on a virtual thread,
+     * so a gateway completing on its own I/O thread is never held up by the database or email.
+     */
+    public CompletableFuture<Boolean> processPaymentAsync(double amount) {
+        long start = chargeTimer.start();
+        return paymentService.chargeAsync(apiKey, amount)
+                .whenComplete((response, failure) -> {
+                    chargeTimer.stop(start);
+                    if (failure != null) {
+                        chargeFailures.increment();
+                    }
+                })
+                .thenApplyAsync(response -> complete(amount, response), VIRTUAL_THREADS);
+    }
+
+    private PaymentApiResponse charge(double amount) {
+        long start = chargeTimer.start();
+        try {
+            return paymentService.charge(apiKey, amount);
+        } catch (RuntimeException e) {
+            chargeFailures.increment();
+            throw e;
+        } finally {
+            chargeTimer.stop(start);
+        }
+    }
 
+    private boolean complete(double amount, PaymentApiResponse response) {
         if (response.isSuccess()) {
+            succeeded.increment();
             databaseService.savePayment(amount, "SUCCESS");
-            emailService.sendPaymentConfirmation("user@example.com", amount);
+            emailService.sendPaymentConfirmation(CONFIRMATION_EMAIL, amount);
+        } else {
+            declined.increment();
         }
 
         return response.isSuccess();
     }
+
+    /**
+     * Processes many payments as a pipeline. Charges run on virtual threads with at most
+     * {@code maxInFlight} outstanding at once; successful charges are saved in batches of up to
+     * {@code batchSize} through {@link DatabaseService#savePayments}, and each saved batch is handed
+     * to a separate stage that sends the confirmation emails. A charge that throws counts as failed.
+     * <p>
+     * A failed save or email never stops the pipeline. Failed emails are counted as
+     * {@code payment.confirmationFailures}. If any batch could not be saved, every charge still
+     * completes and an {@link UnsavedPaymentsException} reports all results and which payments
+     * were charged but not saved.
+     *
+     * @return whether each payment succeeded, in the iteration order of {@code amounts}
+     * @throws UnsavedPaymentsException if some successfully charged payments could not be saved
+     */
+    public List<Boolean> processPayments(Collection<Double> amounts) throws InterruptedException {
+        if (amounts == null) {
+            throw new IllegalArgumentException("Amounts cannot be null");
+        }
+        Boolean[] results = new Boolean[amounts.size()];
+        BlockingQueue<ChargedPayment> charged = new LinkedBlockingQueue<>();
+        BlockingQueue<List<PaymentRecord>> saved = new LinkedBlockingQueue<>();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<Integer> unsaved = new ArrayList<>();
+        RuntimeException[] saveFailure = new RuntimeException[1];
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> writer = executor.submit(() -> writePayments(charged, saved, unsaved, saveFailure));
+            Future<?> mailer = executor.submit(() -> sendConfirmations(saved));
+            try {
+                int index = 0;
+                for (double amount : amounts) {
+                    int slot = index++;
+                    inFlight.acquire();
+                    executor.execute(() -> {
+                        try {
+                            results[slot] = chargeQuietly(amount);
+                            if (results[slot]) {
+                                charged.add(new ChargedPayment(slot, new PaymentRecord(amount, "SUCCESS")));
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                }
+                inFlight.acquire(maxInFlight);
+            } finally {
+                charged.add(END_OF_STREAM);
+            }
+            awaitStage(writer);
+            awaitStage(mailer);
+        }
+        if (!unsaved.isEmpty()) {
+            unsaved.sort(null);
+            throw new UnsavedPaymentsException(Arrays.asList(results), unsaved, saveFailure[0]);
+        }
+        return Arrays.asList(results);
+    }
+
+    private boolean chargeQuietly(double amount) {
+        boolean success;
+        try {
+            success = charge(amount).isSuccess();
+        } catch (RuntimeException e) {
+            return false;
+        }
+        (success ? succeeded : declined).increment();
+        return success;
+    }
+
+    /** Saves charged payments in batches; a batch that fails is recorded in {@code unsaved} and skipped. */
+    private Void writePayments(BlockingQueue<ChargedPayment> charged, BlockingQueue<List<PaymentRecord>> saved,
+                               List<Integer> unsaved, RuntimeException[] saveFailure) throws InterruptedException {
+        try {
+            List<ChargedPayment> batch = new ArrayList<>(batchSize);
+            boolean done = false;
+            while (!done) {
+                batch.add(charged.take());
+                charged.drainTo(batch, batchSize - batch.size());
+                done = batch.remove(END_OF_STREAM);
+                if (!batch.isEmpty()) {
+                    List<PaymentRecord> payments = new ArrayList<>(batch.size());
+                    for (ChargedPayment payment : batch) {
+                        payments.add(payment.record);
+                    }
+                    try {
+                        databaseService.savePayments(payments);
+                        saved.add(payments);
+                    } catch (RuntimeException e) {
+                        for (ChargedPayment payment : batch) {
+                            unsaved.add(payment.index);
+                        }
+                        if (saveFailure[0] == null) {
+                            saveFailure[0] = e;
+                        } else {
+                            saveFailure[0].addSuppressed(e);
+                        }
+                    }
+                    batch.clear();
+                }
+            }
+            return null;
+        } finally {
+            saved.add(List.of());
+        }
+    }
+
+    private Void sendConfirmations(BlockingQueue<List<PaymentRecord>> saved) throws InterruptedException {
+        for (List<PaymentRecord> batch = saved.take(); !batch.isEmpty(); batch = saved.take()) {
+            for (PaymentRecord payment : batch) {
+                try {
+                    emailService.sendPaymentConfirmation(CONFIRMATION_EMAIL, payment.getAmount());
+                } catch (RuntimeException e) {
+                    // The payment is charged and saved; a lost email must not fail the whole run
+                    confirmationFailures.increment();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void awaitStage(Future<?> stage) throws InterruptedException {
+        try {
+            stage.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** A successfully charged payment and its position in the input to {@link #processPayments}. */
+    private static final class ChargedPayment {
+        final int index;
+        final PaymentRecord record;
+
+        ChargedPayment(int index, PaymentRecord record) {
+            this.index = index;
+            this.record = record;
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.payment;
+
+/** A payment to be stored by {@link DatabaseService#savePayments}. */
+public class PaymentRecord {
+    private final double amount;
+    private final String status;
+
+    public PaymentRecord(double amount, String status) {
+        this.amount = amount;
+        this.status = status;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
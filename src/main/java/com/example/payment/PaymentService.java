@@ -1,6 +1,16 @@
 package com.example.payment;
 
+import java.util.concurrent.CompletableFuture;
+
 /** Interface for payment processing */
 public interface PaymentService {
     PaymentApiResponse charge(String apiKey, double amount);
+
+    /**
+     * Charges without blocking the caller. The default adapts {@link #charge} by running it on a
+     * virtual thread; implementations with a non-blocking gateway client should override this.
+     */
+    default CompletableFuture<PaymentApiResponse> chargeAsync(String apiKey, double amount) {
+        return CompletableFuture.supplyAsync(() -> charge(apiKey, amount), task -> Thread.ofVirtual().start(task));
+    }
 }
@@ -0,0 +1,34 @@
+package com.example.payment;
+
+import java.util.List;
+
+/**
+ * Thrown by {@link PaymentProcessor#processPayments} when some payments were charged but could not
+ * be saved. It carries the outcome of every charge and the positions of the payments that still
+ * need to be recorded, so the caller can retry the saves without charging anyone twice.
+ */
+public class UnsavedPaymentsException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // List.copyOf returns serializable lists
+    @SuppressWarnings("serial")
+    private final List<Boolean> results;
+    @SuppressWarnings("serial")
+    private final List<Integer> unsaved;
+
+    public UnsavedPaymentsException(List<Boolean> results, List<Integer> unsaved, Throwable cause) {
+        super(unsaved.size() + " charged payments could not be saved", cause);
+        this.results = List.copyOf(results);
+        this.unsaved = List.copyOf(unsaved);
+    }
+
+    /** Whether each payment was charged successfully, in the order they were given. */
+    public List<Boolean> getResults() {
+        return results;
+    }
+
+    /** Positions, in ascending order, of the payments that were charged but not saved. */
+    public List<Integer> getUnsavedIndexes() {
+        return unsaved;
+    }
+}
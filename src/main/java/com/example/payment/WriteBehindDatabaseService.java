@@ -0,0 +1,335 @@
+package com.example.payment;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers payments in a bounded ring buffer and writes them to the delegate in batches through
+ * {@link DatabaseService#savePayments}, so many payments share one database round-trip. A batch is
+ * written once it holds {@code maxBatchSize} payments, once its oldest payment has waited
+ * {@code maxDelay}, or when {@link #flush()} is called. {@link #savePaymentAsync} returns a future
+ * that completes when the payment's batch has been written.
+ *
+ * <p>{@link #savePayment} and {@link #savePayments} keep the {@link DatabaseService} contract: they
+ * return only once the payments are written, and throw if their batch failed. Concurrent callers
+ * still share batches, but a lone caller may wait up to {@code maxDelay}. Callers that must not
+ * wait use the async methods and handle the future's failure themselves.
+ *
+ * <p>When the buffer is full, callers block for up to {@code enqueueTimeout} and are then rejected,
+ * so a slow database slows the callers down instead of growing memory without bound.
+ */
+public final class WriteBehindDatabaseService implements DatabaseService, AutoCloseable {
+    private final DatabaseService delegate;
+    private final double[] amounts;
+    private final String[] statuses;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long enqueueTimeoutNanos;
+    private final Thread writer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // Batches still in the buffer, oldest first. The last one accepts payments until it is sealed.
+    private final ArrayDeque<Batch> batches = new ArrayDeque<>();
+    private Batch open;
+    private Batch writing;
+    private int head;
+    private int count;
+    private boolean closed;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public WriteBehindDatabaseService(DatabaseService delegate) {
+        this(delegate, 8192, 500, Duration.ofMillis(10), Duration.ofSeconds(5));
+    }
+
+    public WriteBehindDatabaseService(DatabaseService delegate, int capacity, int maxBatchSize,
+                                      Duration maxDelay, Duration enqueueTimeout) {
+        if (capacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        if (maxBatchSize > capacity) {
+            throw new IllegalArgumentException("Batch size cannot exceed capacity");
+        }
+        this.delegate = delegate;
+        this.amounts = new double[capacity];
+        this.statuses = new String[capacity];
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        this.writer = Thread.ofVirtual().name("payment-write-behind").start(this::writeLoop);
+    }
+
+    /**
+     * Buffers a payment and waits until its batch has been written.
+     *
+     * @throws RejectedExecutionException if the buffer stayed full for the whole enqueue timeout
+     * @throws RuntimeException the delegate's failure if the batch could not be written
+     */
+    @Override
+    public void savePayment(double amount, String status) {
+        await(enqueue(amount, status));
+    }
+
+    /**
+     * Buffers the payments and waits until all of their batches have been written. If a batch
+     * failed, the payments in the other batches may still have been written.
+     *
+     * @throws RejectedExecutionException if the buffer stayed full for the whole enqueue timeout
+     * @throws RuntimeException the delegate's failure if a batch could not be written
+     */
+    @Override
+    public void savePayments(List<PaymentRecord> payments) {
+        await(savePaymentsAsync(payments));
+    }
+
+    /**
+     * Buffers a payment and returns a future that completes once it has been written, or completes
+     * exceptionally if its batch failed.
+     *
+     * @throws RejectedExecutionException if the buffer stayed full for the whole enqueue timeout
+     */
+    public CompletableFuture<Void> savePaymentAsync(double amount, String status) {
+        return enqueue(amount, status);
+    }
+
+    /**
+     * Buffers the payments and returns a future that completes once all of them have been written,
+     * or completes exceptionally if any of their batches failed.
+     *
+     * @throws RejectedExecutionException if the buffer stayed full for the whole enqueue timeout
+     */
+    public CompletableFuture<Void> savePaymentsAsync(List<PaymentRecord> payments) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        CompletableFuture<Void> last = null;
+        for (PaymentRecord payment : payments) {
+            CompletableFuture<Void> written = enqueue(payment.getAmount(), payment.getStatus());
+            if (written != last) {
+                pending.add(written);
+                last = written;
+            }
+        }
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new));
+    }
+
+    /** Writes everything buffered so far without waiting for the batch to fill up. */
+    public CompletableFuture<Void> flush() {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        lock.lock();
+        try {
+            if (writing != null) {
+                pending.add(writing.written);
+            }
+            for (Batch batch : batches) {
+                pending.add(batch.written);
+            }
+            if (open != null) {
+                open = null;
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new));
+    }
+
+    /** Number of payments waiting to be written. */
+    public int getBufferedCount() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    /** Payments whose batch the delegate failed to write. */
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /** Payments rejected because the buffer stayed full. */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * Stops accepting payments and waits until the buffer has been written. Keeps waiting if the
+     * caller is interrupted, and restores the interrupt flag afterwards.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            open = null;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                writer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(double amount, String status) {
+        lock.lock();
+        try {
+            long remaining = enqueueTimeoutNanos;
+            while (count == amounts.length && !closed) {
+                if (remaining <= 0) {
+                    rejected.increment();
+                    throw new RejectedExecutionException("Write-behind buffer is full");
+                }
+                try {
+                    remaining = notFull.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejected.increment();
+                    throw new RejectedExecutionException("Interrupted while waiting for buffer space");
+                }
+            }
+            if (closed) {
+                throw new RejectedExecutionException("Write-behind buffer is closed");
+            }
+            int tail = (head + count) % amounts.length;
+            amounts[tail] = amount;
+            statuses[tail] = status;
+            count++;
+            if (open == null) {
+                open = new Batch(System.nanoTime());
+                batches.add(open);
+            }
+            Batch batch = open;
+            batch.size++;
+            if (batch.size == maxBatchSize) {
+                open = null;
+                notEmpty.signal();
+            } else if (count == 1) {
+                notEmpty.signal();
+            }
+            return batch.written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            Batch batch;
+            List<PaymentRecord> payments;
+            lock.lock();
+            try {
+                batch = awaitBatch();
+                if (batch == null) {
+                    return;
+                }
+                payments = new ArrayList<>(batch.size);
+                for (int i = 0; i < batch.size; i++) {
+                    int slot = (head + i) % amounts.length;
+                    payments.add(new PaymentRecord(amounts[slot], statuses[slot]));
+                    statuses[slot] = null;
+                }
+                head = (head + batch.size) % amounts.length;
+                count -= batch.size;
+                writing = batch;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            write(batch, payments);
+        }
+    }
+
+    /** Waits until the oldest batch is sealed or has waited long enough, and takes it. Called with the lock held. */
+    private Batch awaitBatch() {
+        writing = null;
+        while (true) {
+            Batch oldest = batches.peek();
+            if (oldest == null) {
+                if (closed) {
+                    return null;
+                }
+                notEmpty.awaitUninterruptibly();
+                continue;
+            }
+            long remaining = oldest.createdNanos + maxDelayNanos - System.nanoTime();
+            if (oldest != open || remaining <= 0) {
+                if (oldest == open) {
+                    open = null;
+                }
+                return batches.poll();
+            }
+            try {
+                notEmpty.awaitNanos(remaining);
+            } catch (InterruptedException e) {
+                // Keep going: the buffer is always written out before the writer stops
+            }
+        }
+    }
+
+    private void write(Batch batch, List<PaymentRecord> payments) {
+        // Counters are updated before the future completes so that waiters see them
+        try {
+            delegate.savePayments(payments);
+            written.add(payments.size());
+            flushes.increment();
+            batch.written.complete(null);
+        } catch (RuntimeException e) {
+            failed.add(payments.size());
+            flushes.increment();
+            batch.written.completeExceptionally(e);
+        }
+    }
+
+    private static void await(CompletableFuture<Void> written) {
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Batch {
+        final CompletableFuture<Void> written = new CompletableFuture<>();
+        final long createdNanos;
+        int size;
+
+        Batch(long createdNanos) {
+            this.createdNanos = createdNanos;
+        }
+    }
+}
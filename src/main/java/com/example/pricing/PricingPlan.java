@@ -0,0 +1,130 @@
+package com.example.pricing;
+
+import com.example.Item;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of {@link PricingRule}s compiled for evaluation. Rules are grouped per item name up front, with
+ * rules for all items merged into each group, so pricing a line is one map lookup and pricing a cart
+ * is a single pass over its lines regardless of how many rules there are.
+ *
+ * <p>For each line, buy-X-get-Y rules first remove free units (the most generous rule wins), then item
+ * discounts and the best matching quantity tier are applied multiplicatively and the line is rounded to
+ * cents. Cart discounts are then applied in turn to the subtotal.
+ */
+public final class PricingPlan {
+    private static final PricingPlan EMPTY = compile(List.of());
+
+    private final Map<String, LineRules> rulesByItem;
+    private final LineRules allItems;
+    private final PricingRule[] cartRules;
+
+    private PricingPlan(Map<String, LineRules> rulesByItem, LineRules allItems, PricingRule[] cartRules) {
+        this.rulesByItem = rulesByItem;
+        this.allItems = allItems;
+        this.cartRules = cartRules;
+    }
+
+    public static PricingPlan empty() {
+        return EMPTY;
+    }
+
+    public static PricingPlan compile(List<PricingRule> rules) {
+        List<PricingRule> general = new ArrayList<>();
+        Map<String, List<PricingRule>> specific = new HashMap<>();
+        List<PricingRule> cartRules = new ArrayList<>();
+        for (PricingRule rule : rules) {
+            if (rule.kind == PricingRule.Kind.CART_DISCOUNT) {
+                cartRules.add(rule);
+            } else if (rule.itemName == null) {
+                general.add(rule);
+            } else {
+                specific.computeIfAbsent(rule.itemName, name -> new ArrayList<>()).add(rule);
+            }
+        }
+
+        Map<String, LineRules> rulesByItem = new HashMap<>();
+        specific.forEach((name, itemRules) -> {
+            List<PricingRule> merged = new ArrayList<>(itemRules);
+            merged.addAll(general);
+            rulesByItem.put(name, new LineRules(merged));
+        });
+        return new PricingPlan(rulesByItem, new LineRules(general), cartRules.toArray(new PricingRule[0]));
+    }
+
+    /** Starts pricing a cart; feed it every line once and then read the total. */
+    public Evaluation evaluate() {
+        return new Evaluation();
+    }
+
+    public final class Evaluation {
+        private long subtotalCents;
+
+        private Evaluation() {
+        }
+
+        public void addLine(Item item, int quantity, long unitCents) {
+            LineRules rules = rulesByItem.getOrDefault(item.getName(), allItems);
+            subtotalCents = Math.addExact(subtotalCents, rules.price(quantity, unitCents));
+        }
+
+        public long totalCents() {
+            long total = subtotalCents;
+            for (PricingRule rule : cartRules) {
+                if (total >= rule.minSubtotalCents) {
+                    total = Math.round(total * (1 - rule.rate));
+                }
+            }
+            return total;
+        }
+    }
+
+    private static final class LineRules {
+        private final double multiplier;
+        private final int[] tierQuantities;
+        private final double[] tierRates;
+        private final int[] buy;
+        private final int[] free;
+
+        LineRules(List<PricingRule> rules) {
+            double product = 1;
+            List<PricingRule> tiers = new ArrayList<>();
+            List<PricingRule> bundles = new ArrayList<>();
+            for (PricingRule rule : rules) {
+                switch (rule.kind) {
+                    case ITEM_DISCOUNT -> product *= 1 - rule.rate;
+                    case QUANTITY_TIER -> tiers.add(rule);
+                    case BUY_X_GET_Y -> bundles.add(rule);
+                    default -> throw new IllegalArgumentException("Not a line rule: " + rule.kind);
+                }
+            }
+            tiers.sort(Comparator.comparingInt((PricingRule rule) -> rule.quantity).reversed());
+            this.multiplier = product;
+            this.tierQuantities = tiers.stream().mapToInt(rule -> rule.quantity).toArray();
+            this.tierRates = tiers.stream().mapToDouble(rule -> rule.rate).toArray();
+            this.buy = bundles.stream().mapToInt(rule -> rule.quantity).toArray();
+            this.free = bundles.stream().mapToInt(rule -> rule.free).toArray();
+        }
+
+        long price(int quantity, long unitCents) {
+            int freeUnits = 0;
+            for (int i = 0; i < buy.length; i++) {
+                freeUnits = Math.max(freeUnits, quantity / (buy[i] + free[i]) * free[i]);
+            }
+            long cents = Math.multiplyExact(unitCents, (long) quantity - freeUnits);
+            double lineMultiplier = multiplier;
+            for (int i = 0; i < tierQuantities.length; i++) {
+                if (quantity >= tierQuantities[i]) {
+                    lineMultiplier *= 1 - tierRates[i];
+                    break;
+                }
+            }
+            return lineMultiplier == 1 ? cents : Math.round(cents * lineMultiplier);
+        }
+    }
+}
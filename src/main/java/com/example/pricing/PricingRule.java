@@ -0,0 +1,66 @@
+package com.example.pricing;
+
+/**
+ * A discount rule evaluated when a cart is priced. Rules never modify {@link com.example.Item}
+ * prices; they are compiled into a {@link PricingPlan} and applied to the cart's lines.
+ */
+public final class PricingRule {
+    enum Kind {
+        ITEM_DISCOUNT,
+        QUANTITY_TIER,
+        BUY_X_GET_Y,
+        CART_DISCOUNT
+    }
+
+    final Kind kind;
+    final String itemName;
+    final double rate;
+    final int quantity;
+    final int free;
+    final long minSubtotalCents;
+
+    private PricingRule(Kind kind, String itemName, double rate, int quantity, int free, long minSubtotalCents) {
+        this.kind = kind;
+        this.itemName = itemName;
+        this.rate = rate;
+        this.quantity = quantity;
+        this.free = free;
+        this.minSubtotalCents = minSubtotalCents;
+    }
+
+    /** Percentage off every unit of the named item, or of every item if {@code itemName} is null. */
+    public static PricingRule itemDiscount(String itemName, double rate) {
+        return new PricingRule(Kind.ITEM_DISCOUNT, itemName, checkRate(rate), 0, 0, 0);
+    }
+
+    /**
+     * Percentage off a line once its quantity reaches {@code minQuantity}. When several tiers match a
+     * line only the one with the highest minimum quantity applies.
+     */
+    public static PricingRule quantityTier(String itemName, int minQuantity, double rate) {
+        if (minQuantity <= 0) {
+            throw new IllegalArgumentException("Minimum quantity must be positive");
+        }
+        return new PricingRule(Kind.QUANTITY_TIER, itemName, checkRate(rate), minQuantity, 0, 0);
+    }
+
+    /** For every {@code buy} units paid for, {@code free} more units of the same item are free. */
+    public static PricingRule buyXGetY(String itemName, int buy, int free) {
+        if (buy <= 0 || free <= 0) {
+            throw new IllegalArgumentException("Buy and free quantities must be positive");
+        }
+        return new PricingRule(Kind.BUY_X_GET_Y, itemName, 0, buy, free, 0);
+    }
+
+    /** Percentage off the whole cart when the subtotal after line rules reaches {@code minSubtotal}. */
+    public static PricingRule cartDiscount(double rate, double minSubtotal) {
+        return new PricingRule(Kind.CART_DISCOUNT, null, checkRate(rate), 0, 0, Math.round(minSubtotal * 100));
+    }
+
+    private static double checkRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("Discount rate must be between 0 and 1");
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AsyncNotificationServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 8, 0);
+
+    private final Booking booking = new Booking("b1", "room1", START, START.plusHours(1));
+
+    @Test
+    void deliversNotificationsThroughDelegate() throws Exception {
+        NotificationService delegate = mock(NotificationService.class);
+
+        try (AsyncNotificationService service = new AsyncNotificationService(delegate)) {
+            service.sendBookingConfirmation(booking);
+            service.sendCancellationConfirmation(booking);
+        }
+
+        verify(delegate).sendBookingConfirmation(booking);
+        verify(delegate).sendCancellationConfirmation(booking);
+    }
+
+    @Test
+    void coalescesQueuedNotificationsIntoBatches() throws Exception {
+        BatchNotificationService delegate = mock(BatchNotificationService.class);
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstBatchStarted.countDown();
+            releaseFirstBatch.await();
+            return null;
+        }).doNothing().when(delegate).sendBatch(anyList());
+
+        AsyncNotificationService service = new AsyncNotificationService(delegate);
+        service.sendBookingConfirmation(booking);
+        assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 10; i++) {
+            service.sendBookingConfirmation(booking);
+        }
+        releaseFirstBatch.countDown();
+        service.close();
+
+        verify(delegate, times(2)).sendBatch(anyList());
+        assertThat(service.getSentCount()).isEqualTo(11);
+        assertThat(service.getBatchCount()).isEqualTo(2);
+    }
+
+    @Test
+    void retriesFailedNotificationsWithBackoff() throws Exception {
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new NotificationException("Gateway nere"))
+                .doThrow(new NotificationException("Gateway nere"))
+                .doNothing()
+                .when(delegate).sendBookingConfirmation(booking);
+
+        AsyncNotificationService service = new AsyncNotificationService(delegate, 10, 10, 3, Duration.ofMillis(1), Duration.ZERO);
+        service.sendBookingConfirmation(booking);
+        service.close();
+
+        verify(delegate, times(3)).sendBookingConfirmation(booking);
+        assertThat(service.getRetryCount()).isEqualTo(2);
+        assertThat(service.getSentCount()).isEqualTo(1);
+        assertThat(service.getFailedCount()).isZero();
+    }
+
+    @Test
+    void failingNotificationDoesNotHoldUpOthersDuringBackoff() throws Exception {
+        NotificationService delegate = mock(NotificationService.class);
+        Booking other = new Booking("b2", "room1", START.plusHours(2), START.plusHours(3));
+        CountDownLatch otherSent = new CountDownLatch(1);
+        doThrow(new NotificationException("Gateway nere")).when(delegate).sendBookingConfirmation(booking);
+        doAnswer(invocation -> {
+            otherSent.countDown();
+            return null;
+        }).when(delegate).sendBookingConfirmation(other);
+
+        AsyncNotificationService service = new AsyncNotificationService(delegate, 10, 1, 2, Duration.ofSeconds(2), Duration.ZERO);
+        service.sendBookingConfirmation(booking);
+        service.sendBookingConfirmation(other);
+
+        assertThat(otherSent.await(1, TimeUnit.SECONDS)).isTrue();
+        service.close();
+        verify(delegate, times(2)).sendBookingConfirmation(booking);
+        assertThat(service.getRetryCount()).isEqualTo(1);
+        assertThat(service.getFailedCount()).isEqualTo(1);
+        assertThat(service.getSentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsDispatchingAfterDelegateThrowsUnexpectedException() throws Exception {
+        NotificationService delegate = mock(NotificationService.class);
+        doThrow(new IllegalStateException("Trasig gateway"))
+                .doNothing()
+                .when(delegate).sendBookingConfirmation(booking);
+
+        AsyncNotificationService service = new AsyncNotificationService(delegate, 10, 10, 3, Duration.ofMillis(1), Duration.ZERO);
+        service.sendBookingConfirmation(booking);
+        service.sendBookingConfirmation(booking);
+        service.close();
+
+        verify(delegate, times(2)).sendBookingConfirmation(booking);
+        assertThat(service.getRetryCount()).isZero();
+        assertThat(service.getFailedCount()).isEqualTo(1);
+        assertThat(service.getSentCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsNotificationsWhenQueueIsFull() throws Exception {
+        BatchNotificationService delegate = mock(BatchNotificationService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(delegate).sendBatch(anyList());
+
+        AsyncNotificationService service = new AsyncNotificationService(delegate, 1, 1, 1, Duration.ZERO, Duration.ZERO);
+        service.sendBookingConfirmation(booking);
+        // Vänta tills dispatchern plockat den första så att kön är tom igen
+        while (service.getQueueDepth() > 0) {
+            Thread.onSpinWait();
+        }
+        service.sendBookingConfirmation(booking);
+
+        assertThatThrownBy(() -> service.sendBookingConfirmation(booking))
+                .isInstanceOf(NotificationException.class)
+                .hasMessage("Notifieringskön är full");
+        assertThat(service.getRejectedCount()).isEqualTo(1);
+
+        release.countDown();
+        service.close();
+        assertThat(service.getSentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void bookingSystemReturnsWithoutWaitingForGateway() throws Exception {
+        NotificationService slowGateway = mock(NotificationService.class);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(slowGateway).sendBookingConfirmation(any(Booking.class));
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        repository.save(new Room("room1", "Konferensrum"));
+
+        try (AsyncNotificationService service = new AsyncNotificationService(slowGateway)) {
+            BookingSystem bookingSystem = new BookingSystem(() -> START.minusDays(1), repository, service);
+
+            assertThat(bookingSystem.bookRoom("room1", START, START.plusHours(1))).isTrue();
+            assertThat(repository.findById("room1").orElseThrow().getBookings()).hasSize(1);
+            release.countDown();
+        }
+        verify(slowGateway).sendBookingConfirmation(any(Booking.class));
+    }
+}
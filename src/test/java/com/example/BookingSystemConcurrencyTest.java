@@ -0,0 +1,121 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookingSystemConcurrencyTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 3, 8, 0);
+    private static final int ROOMS = 2;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 500;
+
+    private InMemoryRoomRepository roomRepository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        for (int i = 0; i < ROOMS; i++) {
+            roomRepository.save(new Room("room" + i, "Rum " + i));
+        }
+        bookingSystem = new BookingSystem(() -> NOW, roomRepository, mock(NotificationService.class));
+    }
+
+    @Test
+    void concurrentBookingsNeverOverlap() throws Exception {
+        AtomicInteger successfulBookings = new AtomicInteger();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            LocalDateTime start = NOW.plusMinutes(random.nextInt(500));
+            if (bookingSystem.bookRoom("room" + random.nextInt(ROOMS), start, start.plusMinutes(1 + random.nextInt(60)))) {
+                successfulBookings.incrementAndGet();
+            }
+        });
+
+        assertNoOverlappingBookings();
+        int stored = roomRepository.findAll().stream().mapToInt(room -> room.getBookings().size()).sum();
+        assertThat(stored).isEqualTo(successfulBookings.get()).isPositive();
+    }
+
+    @Test
+    void concurrentBookingsAndCancellationsStayConsistent() throws Exception {
+        ConcurrentLinkedQueue<String> bookingIds = new ConcurrentLinkedQueue<>();
+        AtomicInteger cancelled = new AtomicInteger();
+
+        runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String roomId = "room" + random.nextInt(ROOMS);
+            if (random.nextInt(3) == 0) {
+                String bookingId = bookingIds.poll();
+                if (bookingId != null && bookingSystem.cancelBooking(bookingId)) {
+                    cancelled.incrementAndGet();
+                }
+                return;
+            }
+            LocalDateTime start = NOW.plusMinutes(random.nextInt(500));
+            if (bookingSystem.bookRoom(roomId, start, start.plusMinutes(1 + random.nextInt(60)))) {
+                roomRepository.findById(roomId).orElseThrow().getBookings().stream()
+                        .filter(booking -> booking.getStartTime().equals(start))
+                        .findFirst()
+                        .ifPresent(booking -> bookingIds.add(booking.getId()));
+            }
+        });
+
+        assertNoOverlappingBookings();
+        assertThat(cancelled.get()).isPositive();
+        for (String bookingId : bookingIds) {
+            assertThat(roomRepository.findByBookingId(bookingId)).isPresent();
+        }
+    }
+
+    private void runConcurrently(Runnable attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    attempt.run();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private void assertNoOverlappingBookings() {
+        for (Room room : roomRepository.findAll()) {
+            List<Booking> bookings = new ArrayList<>(room.getBookings());
+            for (int i = 0; i < bookings.size(); i++) {
+                for (int j = i + 1; j < bookings.size(); j++) {
+                    Booking other = bookings.get(j);
+                    assertThat(bookings.get(i).overlaps(other.getStartTime(), other.getEndTime()))
+                            .as("%s och %s i %s", bookings.get(i).getId(), other.getId(), room.getId())
+                            .isFalse();
+                }
+            }
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.example;
 
+import com.example.metrics.MetricsRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.assertj.core.api.Assertions.*;
@@ -65,6 +70,48 @@ class BookingSystemTest {
         verify(notificationService, never()).sendBookingConfirmation(any(Booking.class));
     }
 
+    @Test
+    void recordsMetricsForBookingsAndAvailabilityChecks() throws NotificationException {
+        MetricsRegistry metrics = new MetricsRegistry();
+        BookingSystem instrumented = new BookingSystem(timeProvider, roomRepository, notificationService, metrics);
+        LocalDateTime startTime = LocalDateTime.now().plusHours(1);
+        LocalDateTime endTime = startTime.plusHours(1);
+        Room room = mock(Room.class);
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(room.isAvailable(startTime, endTime)).thenReturn(true, false);
+        when(timeProvider.getCurrentTime()).thenReturn(LocalDateTime.now());
+        doThrow(new NotificationException("Gateway nere")).when(notificationService).sendBookingConfirmation(any());
+
+        instrumented.bookRoom("room1", startTime, endTime);
+        instrumented.bookRoom("room1", startTime, endTime);
+
+        assertThat(metrics.getCount("booking.booked")).isEqualTo(1);
+        assertThat(metrics.getCount("booking.rejected")).isEqualTo(1);
+        assertThat(metrics.getCount("booking.notificationFailures")).isEqualTo(1);
+        assertThat(metrics.getHistogram("booking.book").count()).isEqualTo(2);
+        assertThat(metrics.getHistogram("room.isAvailable").count()).isEqualTo(2);
+    }
+
+    @Test
+    void recordsSampledRoomChecksFromSearchesInTheirOwnTimer() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        BookingSystem instrumented = new BookingSystem(timeProvider, roomRepository, notificationService, metrics);
+        LocalDateTime start = LocalDateTime.of(2025, 3, 3, 8, 0);
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            Room room = new Room("room" + i, "Grupprum " + i);
+            // Bokningen delar tidslucka med sökningens slut, så beläggningsindexet kan inte avgöra rummet
+            room.addBooking(new Booking("b" + i, room.getId(), start.plusMinutes(65), start.plusMinutes(90)));
+            rooms.add(room);
+        }
+        when(roomRepository.findAll()).thenReturn(rooms);
+
+        assertThat(instrumented.getAvailableRooms(start, start.plusHours(1))).hasSize(1_000);
+
+        assertThat(metrics.getHistogram("room.isAvailable").count()).isZero();
+        assertThat(metrics.getHistogram("room.isAvailable.sampled").count()).isBetween(1L, 999L);
+    }
+
     @Test
     void bookRoomThrowsExceptionForInvalidArguments() {
         // Test for null startTime
@@ -111,6 +158,57 @@ class BookingSystemTest {
     }
 
 
+    @Test
+    void bookRoomsLoadsAndSavesEachRoomOnce() throws NotificationException {
+        LocalDateTime startTime = LocalDateTime.now().plusHours(1);
+        Room room1 = new Room("room1", "Konferensrum");
+        Room room2 = new Room("room2", "Grupprum");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(roomRepository.findById("room2")).thenReturn(Optional.of(room2));
+        when(timeProvider.getCurrentTime()).thenReturn(LocalDateTime.now());
+
+        List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime, startTime.plusHours(1)),
+                new BookingRequest("room2", startTime, startTime.plusHours(1)),
+                new BookingRequest("room1", startTime.plusHours(2), startTime.plusHours(3))));
+
+        assertThat(results).allMatch(BookingResult::isBooked);
+        assertThat(room1.getBookings()).hasSize(2);
+        assertThat(room2.getBookings()).hasSize(1);
+        verify(roomRepository, times(1)).findById("room1");
+        verify(roomRepository, times(1)).save(room1);
+        verify(roomRepository, times(1)).save(room2);
+        verify(notificationService, times(3)).sendBookingConfirmation(any(Booking.class));
+    }
+
+    @Test
+    void bookRoomsRejectsRequestsConflictingWithinBatchOrExistingBookings() {
+        LocalDateTime startTime = LocalDateTime.now().plusHours(1);
+        Room room = new Room("room1", "Konferensrum");
+        room.addBooking(new Booking("existing", "room1", startTime.plusHours(4), startTime.plusHours(5)));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(roomRepository.findById("missing")).thenReturn(Optional.empty());
+        when(timeProvider.getCurrentTime()).thenReturn(LocalDateTime.now());
+
+        List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime, startTime.plusHours(2)),
+                new BookingRequest("room1", startTime.plusHours(1), startTime.plusHours(3)),
+                new BookingRequest("room1", startTime.plusHours(4), startTime.plusHours(6)),
+                new BookingRequest("room1", startTime.minusHours(3), startTime.minusHours(2)),
+                new BookingRequest("missing", startTime, startTime.plusHours(1))));
+
+        assertThat(results).extracting(BookingResult::getStatus).containsExactly(
+                BookingResult.Status.BOOKED,
+                BookingResult.Status.UNAVAILABLE,
+                BookingResult.Status.UNAVAILABLE,
+                BookingResult.Status.INVALID,
+                BookingResult.Status.INVALID);
+        assertThat(results.get(3).getMessage()).isEqualTo("Kan inte boka tid i dåtid");
+        assertThat(results.get(4).getMessage()).isEqualTo("Rummet existerar inte");
+        assertThat(room.getBookings()).hasSize(2);
+        verify(roomRepository, times(1)).save(room);
+    }
+
     @Test
     void getAvailableRoomsReturnsCorrectRooms() {
         LocalDateTime startTime = LocalDateTime.now().plusHours(1);
@@ -158,11 +256,10 @@ class BookingSystemTest {
         Booking booking = mock(Booking.class);
 
         Room room = mock(Room.class);
-        when(room.hasBooking(bookingId)).thenReturn(true);
         when(room.getBooking(bookingId)).thenReturn(booking);
         when(booking.getStartTime()).thenReturn(futureStartTime);
 
-        when(roomRepository.findAll()).thenReturn(List.of(room));
+        when(roomRepository.findByBookingId(bookingId)).thenReturn(Optional.of(room));
         when(timeProvider.getCurrentTime()).thenReturn(LocalDateTime.now());
 
         boolean result = bookingSystem.cancelBooking(bookingId);
@@ -177,11 +274,12 @@ class BookingSystemTest {
     void cancelBookingFailsForNonExistentBooking() {
         String bookingId = "nonExistentBooking";
 
-        when(roomRepository.findAll()).thenReturn(List.of());
+        when(roomRepository.findByBookingId(bookingId)).thenReturn(Optional.empty());
 
         boolean result = bookingSystem.cancelBooking(bookingId);
 
         assertThat(result).isFalse();
+        verify(roomRepository, never()).findAll();
     }
 
     @Test
@@ -200,11 +298,10 @@ class BookingSystemTest {
         Booking booking = mock(Booking.class);
 
         Room room = mock(Room.class);
-        when(room.hasBooking(bookingId)).thenReturn(true);
         when(room.getBooking(bookingId)).thenReturn(booking);
         when(booking.getStartTime()).thenReturn(pastStartTime);
 
-        when(roomRepository.findAll()).thenReturn(List.of(room));
+        when(roomRepository.findByBookingId(bookingId)).thenReturn(Optional.of(room));
         when(timeProvider.getCurrentTime()).thenReturn(LocalDateTime.now());
 
         assertThatThrownBy(() -> bookingSystem.cancelBooking(bookingId))
@@ -212,4 +309,255 @@ class BookingSystemTest {
                 .hasMessage("Kan inte avboka påbörjad eller avslutad bokning");
     }
 
+
+    @Test
+    void getBookingsMergesAllRoomsInStartOrder() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 3, 8, 0);
+        Room first = new Room("room1", "Rum 1");
+        Room second = new Room("room2", "Rum 2");
+        first.addBooking(new Booking("a", "room1", base, base.plusHours(1)));
+        first.addBooking(new Booking("c", "room1", base.plusHours(2), base.plusHours(3)));
+        second.addBooking(new Booking("b", "room2", base.plusMinutes(30), base.plusHours(2)));
+        second.addBooking(new Booking("d", "room2", base.plusHours(2), base.plusHours(4)));
+        second.addBooking(new Booking("e", "room2", base.plusDays(1), base.plusDays(1).plusHours(1)));
+        when(roomRepository.findAll()).thenReturn(List.of(second, first));
+        when(roomRepository.findById("room2")).thenReturn(Optional.of(second));
+
+        assertThat(bookingSystem.getBookings(base, base.plusHours(5)).map(Booking::getId))
+                .containsExactly("a", "b", "c", "d");
+        assertThat(bookingSystem.getBookings("room2", base.plusHours(3), base.plusDays(2)).map(Booking::getId))
+                .containsExactly("d", "e");
+        assertThatThrownBy(() -> bookingSystem.getBookings("saknas", base, base.plusHours(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Rummet existerar inte");
+    }
+
+    @Test
+    void getAvailableRoomsSearchesLargeInventoryInParallel() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 3, 8, 0);
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Room room = new Room("room" + i, (i % 2 == 0 ? "Aula " : "Grupprum ") + i);
+            if (i % 3 == 0) {
+                room.addBooking(new Booking("b" + i, room.getId(), base, base.plusHours(2)));
+            }
+            rooms.add(room);
+        }
+        when(roomRepository.findAll()).thenReturn(rooms);
+        LocalDateTime start = base.plusHours(1);
+        LocalDateTime end = base.plusHours(3);
+        List<Room> expected = rooms.stream().filter(room -> room.isAvailable(start, end)).toList();
+
+        assertThat(bookingSystem.getAvailableRooms(start, end)).containsExactlyElementsOf(expected);
+        assertThat(bookingSystem.getAvailableRooms(start, end, "Aula", Integer.MAX_VALUE))
+                .containsExactlyElementsOf(expected.stream().filter(room -> room.getName().startsWith("Aula")).toList());
+        List<Room> firstTen = bookingSystem.getAvailableRooms(start, end, "Grupprum", 10);
+        assertThat(firstTen).hasSize(10).isSubsetOf(expected)
+                .allMatch(room -> room.getName().startsWith("Grupprum"));
+    }
+
+    @Test
+    void getAvailableRoomsMatchesRoomChecksWhileBookingsChange() {
+        LocalDateTime now = LocalDateTime.of(2025, 3, 3, 7, 0);
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        BookingSystem system = new BookingSystem(() -> now, repository, notificationService);
+        for (int i = 0; i < 20; i++) {
+            repository.save(new Room("room" + i, "Rum " + i));
+        }
+        repository.findById("room3").orElseThrow().addRecurringBooking(
+                RecurringBooking.daily("s1", "room3", now.plusHours(2), now.plusHours(3), now.plusDays(5)));
+        Random random = new Random(42);
+        List<String> bookingIds = new ArrayList<>();
+
+        for (int step = 0; step < 500; step++) {
+            LocalDateTime start = now.plusMinutes(5L * random.nextInt(24 * 12 * 2));
+            LocalDateTime end = start.plusMinutes(5L * (1 + random.nextInt(24)));
+            if (random.nextInt(3) > 0) {
+                system.bookRoom("room" + random.nextInt(20), start, end);
+            } else if (!bookingIds.isEmpty()) {
+                system.cancelBooking(bookingIds.remove(random.nextInt(bookingIds.size())));
+            }
+            repository.findAll().forEach(room -> room.getBookings().forEach(booking -> {
+                if (!bookingIds.contains(booking.getId())) {
+                    bookingIds.add(booking.getId());
+                }
+            }));
+
+            List<Room> expected = repository.findAll().stream().filter(room -> room.isAvailable(start, end)).toList();
+            assertThat(system.getAvailableRooms(start, end)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void getAvailableRoomsStopsAtLimit() {
+        LocalDateTime startTime = LocalDateTime.now().plusHours(1);
+        LocalDateTime endTime = startTime.plusHours(1);
+        Room first = mock(Room.class);
+        Room second = mock(Room.class);
+        Room third = mock(Room.class);
+        when(roomRepository.findAll()).thenReturn(List.of(first, second, third));
+        when(first.isAvailable(startTime, endTime)).thenReturn(false);
+        when(second.isAvailable(startTime, endTime)).thenReturn(true);
+
+        assertThat(bookingSystem.getAvailableRooms(startTime, endTime, null, 1)).containsExactly(second);
+        verify(third, never()).isAvailable(any(LocalDateTime.class), any(LocalDateTime.class));
+        assertThatThrownBy(() -> bookingSystem.getAvailableRooms(startTime, endTime, null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Antal rum måste vara positivt");
+    }
+
+    @Test
+    void findNextAvailableReturnsEarliestGapsAcrossRooms() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 3, 8, 0);
+        Room first = new Room("room1", "Rum 1");
+        Room second = new Room("room2", "Rum 2");
+        Room third = new Room("room3", "Rum 3");
+        first.addBooking(new Booking("a", "room1", base, base.plusHours(1)));
+        first.addBooking(new Booking("b", "room1", base.plusHours(3), base.plusHours(4)));
+        second.addBooking(new Booking("c", "room2", base.plusMinutes(30), base.plusMinutes(90)));
+        when(roomRepository.findAll()).thenReturn(List.of(first, second, third));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(first));
+        when(roomRepository.findById("room2")).thenReturn(Optional.of(second));
+        when(timeProvider.getCurrentTime()).thenReturn(base.minusDays(1));
+        Duration hour = Duration.ofHours(1);
+        // Bokningar är slutna intervall, så en lucka börjar första hela minuten efter föregående bokning
+        LocalDateTime afterA = base.plusHours(1).plusMinutes(1);
+        LocalDateTime afterC = base.plusMinutes(91);
+        LocalDateTime afterB = base.plusHours(4).plusMinutes(1);
+
+        List<AvailableSlot> slots = bookingSystem.findNextAvailable(hour, base, base.plusHours(6), null, 10);
+
+        assertThat(slots).containsExactly(
+                new AvailableSlot("room3", base, base.plusHours(1)),
+                new AvailableSlot("room1", afterA, afterA.plusHours(1)),
+                new AvailableSlot("room2", afterC, afterC.plusHours(1)),
+                new AvailableSlot("room1", afterB, afterB.plusHours(1)));
+        Map<String, Room> rooms = Map.of("room1", first, "room2", second, "room3", third);
+        assertThat(slots).allMatch(slot -> rooms.get(slot.getRoomId()).isAvailable(slot.getStartTime(), slot.getEndTime()));
+        assertThat(bookingSystem.findNextAvailable(hour, base, base.plusHours(6), null, 2)).hasSize(2);
+        assertThat(bookingSystem.findNextAvailable(hour, base, base.plusHours(6), List.of("room2", "room1")))
+                .contains(new AvailableSlot("room1", afterA, afterA.plusHours(1)));
+        assertThat(bookingSystem.findNextAvailable(Duration.ofHours(3), base, base.plusHours(4), List.of("room1", "room2")))
+                .isEmpty();
+    }
+
+    @Test
+    void findNextAvailableSkipsPastAndRejectsInvalidArguments() {
+        LocalDateTime now = LocalDateTime.of(2025, 3, 3, 10, 0);
+        Room room = new Room("room1", "Rum 1");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(timeProvider.getCurrentTime()).thenReturn(now);
+        Duration hour = Duration.ofHours(1);
+
+        assertThat(bookingSystem.findNextAvailable(hour, now.minusHours(5), now.plusHours(5), List.of("room1")))
+                .contains(new AvailableSlot("room1", now, now.plusHours(1)));
+        assertThatThrownBy(() -> bookingSystem.findNextAvailable(hour, now, now.plusHours(5), List.of("saknas")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Rummet existerar inte");
+        assertThatThrownBy(() -> bookingSystem.findNextAvailable(Duration.ZERO, now, now.plusHours(5), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Längden måste vara positiv");
+        assertThatThrownBy(() -> bookingSystem.findNextAvailable(hour, now.plusHours(5), now, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sluttid måste vara efter starttid");
+        assertThatThrownBy(() -> bookingSystem.findNextAvailable(hour, now, now.plusHours(5), null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Antal förslag måste vara positivt");
+        assertThatThrownBy(() -> bookingSystem.findNextAvailable(hour, now, now.plusHours(5), null, 1, Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Upplösningen måste vara positiv");
+    }
+
+    @Test
+    void findNextAvailableRoundsStartsUpToGranularity() {
+        LocalDateTime now = LocalDateTime.of(2025, 3, 3, 9, 7, 12, 345);
+        LocalDateTime nine = now.withMinute(0).withSecond(0).withNano(0);
+        Room room = new Room("room1", "Rum 1");
+        room.addBooking(new Booking("a", "room1", nine.plusMinutes(30), nine.plusHours(1).plusSeconds(20)));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(timeProvider.getCurrentTime()).thenReturn(now);
+        Duration quarter = Duration.ofMinutes(15);
+
+        assertThat(bookingSystem.findNextAvailable(quarter, nine, nine.plusHours(3), List.of("room1"), 2))
+                .containsExactly(
+                        new AvailableSlot("room1", nine.plusMinutes(8), nine.plusMinutes(23)),
+                        new AvailableSlot("room1", nine.plusMinutes(61), nine.plusMinutes(76)));
+        // 09:15-09:30 rör bokningen som börjar 09:30, så första kvarten som ryms börjar 10:15
+        assertThat(bookingSystem.findNextAvailable(quarter, nine, nine.plusHours(3), List.of("room1"), 1, quarter))
+                .containsExactly(new AvailableSlot("room1", nine.plusMinutes(75), nine.plusMinutes(90)));
+    }
+
+    @Test
+    void bookRecurringStoresOneSeriesAndCancelsOccurrencesCheaply() throws NotificationException {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 3, 9, 0);
+        Room room = new Room("room1", "Rum 1");
+        room.addBooking(new Booking("b1", "room1", base.plusWeeks(4).plusMinutes(30), base.plusWeeks(4).plusHours(2)));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(timeProvider.getCurrentTime()).thenReturn(base.minusDays(1));
+        Duration week = Duration.ofDays(7);
+
+        assertThat(bookingSystem.bookRecurring("room1", base, base.plusHours(1), week, base.plusWeeks(10))).isEmpty();
+        RecurringBooking series = bookingSystem.bookRecurring("room1", base.plusHours(3), base.plusHours(4),
+                week, base.plusWeeks(10)).orElseThrow();
+
+        assertThat(room.getRecurringBookings()).containsExactly(series);
+        assertThat(room.getBookings()).hasSize(1);
+        assertThat(bookingSystem.bookRoom("room1", base.plusWeeks(6).plusHours(3), base.plusWeeks(6).plusHours(4))).isFalse();
+        verify(notificationService).sendBookingConfirmation(any(Booking.class));
+
+        assertThat(bookingSystem.cancelOccurrence("room1", series.getId(), base.plusWeeks(6).plusHours(3))).isTrue();
+        assertThat(bookingSystem.cancelOccurrence("room1", series.getId(), base.plusWeeks(6).plusHours(3))).isFalse();
+        assertThat(room.getRecurringBooking(series.getId()).getExceptions()).containsExactly(base.plusWeeks(6).plusHours(3));
+        assertThat(bookingSystem.bookRoom("room1", base.plusWeeks(6).plusHours(3), base.plusWeeks(6).plusHours(4))).isTrue();
+
+        assertThat(bookingSystem.cancelRecurringBooking("room1", series.getId())).isTrue();
+        assertThat(bookingSystem.cancelRecurringBooking("room1", series.getId())).isFalse();
+        assertThat(room.getRecurringBookings()).isEmpty();
+        verify(notificationService, times(2)).sendCancellationConfirmation(any(Booking.class));
+        verify(roomRepository, times(4)).save(room);
+    }
+
+    @Test
+    void cancelOccurrenceFailsForStartedOccurrence() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 3, 9, 0);
+        Room room = new Room("room1", "Rum 1");
+        room.addRecurringBooking(RecurringBooking.daily("s1", "room1", base, base.plusHours(1), base.plusDays(5)));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(timeProvider.getCurrentTime()).thenReturn(base.plusDays(1).plusMinutes(10));
+
+        assertThatThrownBy(() -> bookingSystem.cancelOccurrence("room1", "s1", base.plusDays(1)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Kan inte avboka påbörjad eller avslutad bokning");
+        assertThatThrownBy(() -> bookingSystem.bookRecurring("room1", base, base.plusHours(1), Duration.ofDays(1), base.plusDays(3)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Kan inte boka tid i dåtid");
+        assertThat(bookingSystem.cancelOccurrence("room1", "saknas", base.plusDays(2))).isFalse();
+        assertThat(room.getRecurringBooking("s1").size()).isEqualTo(6);
+    }
+
+    @Test
+    void cancelRecurringBookingKeepsStartedOccurrencesAndCancelsTheRest() throws NotificationException {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 3, 9, 0);
+        Room room = new Room("room1", "Rum 1");
+        room.addRecurringBooking(RecurringBooking.daily("s1", "room1", base, base.plusHours(1), base.plusDays(5))
+                .withException(base.plusDays(2)));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+        when(timeProvider.getCurrentTime()).thenReturn(base.plusDays(1).plusMinutes(10));
+
+        assertThat(bookingSystem.cancelRecurringBooking("room1", "s1")).isTrue();
+
+        RecurringBooking remaining = room.getRecurringBooking("s1");
+        assertThat(remaining.getLastStartTime()).isEqualTo(base.plusDays(1));
+        assertThat(remaining.getExceptions()).isEmpty();
+        assertThat(remaining.getOccurrences(base, base.plusDays(10)).map(Booking::getStartTime))
+                .containsExactly(base, base.plusDays(1));
+        verify(notificationService).sendCancellationConfirmation(argThat(booking ->
+                booking.getStartTime().equals(base.plusDays(3))));
+        verify(roomRepository).save(room);
+
+        assertThatThrownBy(() -> bookingSystem.cancelRecurringBooking("room1", "s1"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Serien har inga kommande tillfällen att avboka");
+        assertThat(room.getRecurringBooking("s1")).isSameAs(remaining);
+    }
 }
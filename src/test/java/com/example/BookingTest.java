@@ -0,0 +1,53 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BookingTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 8, 0, 0, 123_456_789);
+
+    @Test
+    void keepsUuidIdAndExactTimes() {
+        String id = UUID.randomUUID().toString();
+        Booking booking = new Booking(id, "room1", START, START.plusHours(1));
+
+        assertThat(booking.getId()).isEqualTo(id);
+        assertThat(booking.getRoomId()).isEqualTo("room1");
+        assertThat(booking.getStartTime()).isEqualTo(START);
+        assertThat(booking.getEndTime()).isEqualTo(START.plusHours(1));
+    }
+
+    @Test
+    void keepsIdsThatAreNotUuids() {
+        Booking booking = new Booking("booking1", "room1", START, START.plusHours(1));
+        Booking upperCase = new Booking("123E4567-E89B-12D3-A456-426614174000", "room1", START, START.plusHours(1));
+
+        assertThat(booking.getId()).isEqualTo("booking1");
+        assertThat(upperCase.getId()).isEqualTo("123E4567-E89B-12D3-A456-426614174000");
+    }
+
+    @Test
+    void overlapsTreatsTouchingIntervalsAsOverlapping() {
+        Booking booking = new Booking("b1", "room1", START, START.plusHours(1));
+
+        assertThat(booking.overlaps(START.plusHours(1), START.plusHours(2))).isTrue();
+        assertThat(booking.overlaps(START.minusHours(1), START)).isTrue();
+        assertThat(booking.overlaps(START.plusHours(1).plusNanos(1), START.plusHours(2))).isFalse();
+        assertThat(booking.overlaps(LocalDateTime.MIN, LocalDateTime.MAX)).isTrue();
+    }
+
+    @Test
+    void rejectsNullIdAndUnrepresentableTimes() {
+        assertThatThrownBy(() -> new Booking(null, "room1", START, START.plusHours(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Boknings-id kan inte vara null");
+        assertThatThrownBy(() -> new Booking("b1", "room1", START, LocalDateTime.MAX))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Bokningstid utanför giltigt intervall");
+    }
+}
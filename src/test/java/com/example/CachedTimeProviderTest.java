@@ -0,0 +1,128 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CachedTimeProviderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 8, 0, 0, 400_000_000);
+
+    private final AdjustableClock clock = new AdjustableClock(START.toInstant(ZoneOffset.UTC));
+
+    @Test
+    void returnsSameInstanceUntilNextResolutionStep() throws Exception {
+        try (CachedTimeProvider provider = new CachedTimeProvider(Duration.ofSeconds(1), clock)) {
+            LocalDateTime first = provider.getCurrentTime();
+            clock.advance(Duration.ofMillis(500));
+            provider.refresh();
+
+            assertThat(first).isEqualTo(START.withNano(0));
+            assertThat(provider.getCurrentTime()).isSameAs(first);
+
+            clock.advance(Duration.ofMillis(100));
+            provider.refresh();
+
+            assertThat(provider.getCurrentTime()).isEqualTo(START.withNano(0).plusSeconds(1));
+        }
+    }
+
+    @Test
+    void exposesTimeAsEpochMillisOfLocalTime() throws Exception {
+        try (CachedTimeProvider provider = new CachedTimeProvider(Duration.ofMillis(1), clock)) {
+            clock.advance(Duration.ofMillis(1250));
+            provider.refresh();
+
+            assertThat(provider.getCurrentTime()).isEqualTo(START.plusNanos(TimeUnit.MILLISECONDS.toNanos(1250)));
+            assertThat(provider.getCurrentTimeMillis())
+                    .isEqualTo(provider.getCurrentTime().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    @Test
+    void followsWallClockSetForward() throws Exception {
+        try (CachedTimeProvider provider = new CachedTimeProvider(Duration.ofMillis(1), clock)) {
+            clock.advance(Duration.ofHours(1));
+            provider.refresh();
+
+            assertThat(provider.getCurrentTime()).isEqualTo(START.plusHours(1));
+        }
+    }
+
+    @Test
+    void standsStillWhileWallClockIsBehind() throws Exception {
+        try (CachedTimeProvider provider = new CachedTimeProvider(Duration.ofMillis(1), clock)) {
+            clock.advance(Duration.ofHours(-1));
+            provider.refresh();
+
+            assertThat(provider.getCurrentTime()).isEqualTo(START);
+
+            clock.advance(Duration.ofHours(1).plusSeconds(2));
+            provider.refresh();
+
+            assertThat(provider.getCurrentTime()).isEqualTo(START.plusSeconds(2));
+        }
+    }
+
+    @Test
+    void backgroundThreadKeepsTimeMoving() throws Exception {
+        try (CachedTimeProvider provider = new CachedTimeProvider(Duration.ofMillis(1))) {
+            long first = provider.getCurrentTimeMillis();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (provider.getCurrentTimeMillis() == first && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+
+            assertThat(provider.getCurrentTimeMillis()).isGreaterThan(first);
+        }
+    }
+
+    @Test
+    void rejectsResolutionBelowOneMillisecond() {
+        assertThatThrownBy(() -> new CachedTimeProvider(Duration.ofNanos(500)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Upplösningen måste vara minst en millisekund");
+    }
+
+    @Test
+    void defaultMillisAccessorUsesLocalTime() {
+        TimeProvider provider = () -> LocalDateTime.of(1970, 1, 1, 0, 0, 1);
+
+        assertThat(provider.getCurrentTimeMillis()).isEqualTo(1000);
+    }
+
+    private static final class AdjustableClock extends Clock {
+        private volatile Instant now;
+
+        AdjustableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingRoomRepositoryTest {
+
+    private RoomRepository delegate;
+    private AtomicLong ticker;
+    private CachingRoomRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(RoomRepository.class);
+        ticker = new AtomicLong();
+        repository = new CachingRoomRepository(delegate, 2, Duration.ofMinutes(1), ticker::get);
+    }
+
+    @Test
+    void findByIdIsServedFromCacheAfterFirstLoad() {
+        Room room = new Room("room1", "Konferensrum");
+        when(delegate.findById("room1")).thenReturn(Optional.of(room));
+
+        assertThat(repository.findById("room1")).containsSame(room);
+        assertThat(repository.findById("room1")).containsSame(room);
+
+        verify(delegate, times(1)).findById("room1");
+        assertThat(repository.getHitCount()).isEqualTo(1);
+        assertThat(repository.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findByIdReloadsExpiredEntries() {
+        when(delegate.findById("room1")).thenReturn(Optional.of(new Room("room1", "Konferensrum")));
+
+        repository.findById("room1");
+        ticker.addAndGet(Duration.ofMinutes(1).toNanos());
+        repository.findById("room1");
+
+        verify(delegate, times(2)).findById("room1");
+        assertThat(repository.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void leastRecentlyUsedRoomIsEvictedWhenFull() {
+        for (String id : List.of("room1", "room2", "room3")) {
+            when(delegate.findById(id)).thenReturn(Optional.of(new Room(id, id)));
+        }
+
+        repository.findById("room1");
+        repository.findById("room2");
+        repository.findById("room1");
+        repository.findById("room3");
+        repository.findById("room1");
+        repository.findById("room2");
+
+        verify(delegate, times(1)).findById("room1");
+        verify(delegate, times(2)).findById("room2");
+        assertThat(repository.getEvictionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void findAllIsServedFromSnapshotUntilSave() {
+        Room room = new Room("room1", "Konferensrum");
+        when(delegate.findAll()).thenReturn(List.of(room));
+
+        repository.findAll();
+        repository.findAll();
+        verify(delegate, times(1)).findAll();
+
+        repository.save(room);
+        repository.findAll();
+
+        verify(delegate).save(room);
+        verify(delegate, times(2)).findAll();
+    }
+
+    @Test
+    void findAllReloadsWhenRoomWasSavedDuringLoad() {
+        Room room = new Room("room1", "Konferensrum");
+        when(delegate.findAll()).thenAnswer(invocation -> {
+            repository.save(room);
+            return List.of();
+        }).thenReturn(List.of(room));
+
+        assertThat(repository.findAll()).isEmpty();
+
+        assertThat(repository.findAll()).containsExactly(room);
+        verify(delegate, times(2)).findAll();
+    }
+
+    @Test
+    void saveWritesThroughAndUpdatesCachedRoom() {
+        Room room = new Room("room1", "Konferensrum");
+
+        repository.save(room);
+
+        verify(delegate).save(room);
+        assertThat(repository.findById("room1")).containsSame(room);
+        verify(delegate, never()).findById("room1");
+    }
+
+    @Test
+    void deleteRemovesRoomFromDelegateAndCache() {
+        when(delegate.findById("room1")).thenReturn(Optional.of(new Room("room1", "Konferensrum")));
+        repository.findById("room1");
+
+        repository.delete("room1");
+        when(delegate.findById("room1")).thenReturn(Optional.empty());
+
+        verify(delegate).delete("room1");
+        assertThat(repository.findById("room1")).isEmpty();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CartLinesTest {
+
+    @Test
+    void matchesHashMapUnderRandomInsertsAndRemovals() {
+        CartLines lines = new CartLines();
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int step = 0; step < 50_000; step++) {
+            Item item = new Item("item" + random.nextInt(500), 1.0);
+            int index = lines.indexOf(item);
+            if (random.nextBoolean()) {
+                if (index < 0) {
+                    index = lines.insert(item, 100);
+                }
+                lines.setQuantityAt(index, lines.quantityAt(index) + 1);
+                expected.merge(item.getName(), 1, Integer::sum);
+            } else if (index >= 0) {
+                lines.removeAt(index);
+                expected.remove(item.getName());
+            }
+        }
+
+        assertThat(lines.size()).isEqualTo(expected.size());
+        expected.forEach((name, quantity) ->
+                assertThat(lines.quantityAt(lines.indexOf(new Item(name, 0)))).isEqualTo(quantity));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ConcurrentShoppingCartTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+
+    private ConcurrentShoppingCart cart;
+
+    @BeforeEach
+    void setUp() {
+        cart = new ConcurrentShoppingCart();
+    }
+
+    @Test
+    @DisplayName("Should Behave Like ShoppingCart For A Single Session")
+    void shouldBehaveLikeShoppingCartForSingleSession() {
+        Item item1 = new Item("item1", 10.0);
+        Item item2 = new Item("item2", 15.0);
+        cart.addItem(item1);
+        cart.addItem(item1);
+        cart.addItem(item2);
+        cart.removeItem(item1);
+        cart.updateQuantity(item2, 4);
+
+        assertThat(cart.getItems()).containsOnlyKeys(item1, item2);
+        assertThat(cart.getItemQuantity(item2)).isEqualTo(4);
+        assertThat(cart.getItemQuantity(null)).isZero();
+        assertThat(cart.calculateTotalPrice()).isEqualTo(70.0);
+
+        cart.updateQuantity(item2, 0);
+        assertThatThrownBy(() -> cart.removeItem(item2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Item not in cart");
+    }
+
+    @Test
+    @DisplayName("Should Not Lose Updates Under Parallel Adds And Removes")
+    void shouldNotLoseUpdatesUnderParallelAddsAndRemoves() throws Exception {
+        Item shared = new Item("shared", 2.5);
+        Item churned = new Item("churned", 1.0);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                cart.addItem(shared);
+                cart.addItem(churned);
+                cart.removeItem(churned);
+            }
+        });
+
+        assertThat(cart.getItemQuantity(shared)).isEqualTo(THREADS * OPERATIONS);
+        assertThat(cart.getItemQuantity(churned)).isZero();
+        assertThat(cart.getItems()).containsOnlyKeys(shared);
+        assertThat(cart.calculateTotalPrice()).isEqualTo(THREADS * OPERATIONS * 2.5);
+    }
+
+    @Test
+    @DisplayName("Should Keep Quantity And Total Consistent When Lines Are Removed Concurrently")
+    void shouldKeepQuantityAndTotalConsistentWhenLinesAreRemovedConcurrently() throws Exception {
+        Item item = new Item("item", 1.0);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                if (thread % 2 == 0) {
+                    cart.addItem(item);
+                } else {
+                    cart.updateQuantity(item, 0);
+                }
+            }
+        });
+        int remaining = cart.getItemQuantity(item);
+
+        assertThat(cart.calculateTotalPrice()).isEqualTo(remaining * 1.0);
+    }
+
+    private void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                body.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        for (Future<?> worker : workers) {
+            worker.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FileRoomRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 8, 0, 0, 500);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoresRoomsAndBookingsFromLog() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Konferensrum");
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            room.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            repository.save(room);
+            room.removeBooking("b1");
+            repository.save(room);
+            repository.save(new Room("room2", "Grupprum"));
+        }
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = repository.findById("room1").orElseThrow();
+            assertThat(room.getName()).isEqualTo("Konferensrum");
+            assertThat(room.hasBooking("b1")).isFalse();
+            assertThat(room.getBooking("b2").getStartTime()).isEqualTo(START.plusHours(2));
+            assertThat(repository.findAll()).hasSize(2);
+            assertThat(repository.findByBookingId("b2")).containsSame(room);
+            assertThat(repository.findByBookingId("b1")).isEmpty();
+        }
+    }
+
+    @Test
+    void logsChangesToRoomAlsoSavedInAnotherRepository() throws IOException {
+        String uuid = "3f2504e0-4f89-41d3-9a0c-0305e82c3301";
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            InMemoryRoomRepository other = new InMemoryRoomRepository();
+            Room room = new Room("room1", "Konferensrum");
+            room.addBooking(new Booking(uuid, "room1", START, START.plusHours(1)));
+            other.save(room);
+            repository.save(room);
+
+            room.removeBooking(uuid);
+            room.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            other.save(room);
+            repository.save(room);
+        }
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = repository.findById("room1").orElseThrow();
+            assertThat(room.hasBooking(uuid)).isFalse();
+            assertThat(room.hasBooking("b2")).isTrue();
+        }
+    }
+
+    @Test
+    void restoresRoomWithoutNameAndEverythingSavedAfterIt() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            repository.save(new Room("room1", null));
+            Room room = new Room("room2", "Grupprum");
+            room.addBooking(new Booking("b1", "room2", START, START.plusHours(1)));
+            repository.save(room);
+        }
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            assertThat(repository.findById("room1").orElseThrow().getName()).isNull();
+            assertThat(repository.findByBookingId("b1")).isPresent();
+            repository.compact();
+        }
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            assertThat(repository.findById("room1").orElseThrow().getName()).isNull();
+            assertThat(repository.findById("room2").orElseThrow().getName()).isEqualTo("Grupprum");
+            assertThat(repository.findByBookingId("b1")).isPresent();
+        }
+    }
+
+    @Test
+    void restoresStateAfterCompaction() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory, 4 * 1024)) {
+            Room room = new Room("room1", "Konferensrum");
+            for (int i = 0; i < 200; i++) {
+                room.addBooking(new Booking("b" + i, "room1", START.plusHours(i), START.plusHours(i).plusMinutes(30)));
+                repository.save(room);
+            }
+            room.removeBooking("b0");
+            repository.save(room);
+        }
+
+        assertThat(directory.resolve("rooms.snapshot")).exists();
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = repository.findById("room1").orElseThrow();
+            assertThat(room.getBookings()).hasSize(199);
+            assertThat(room.hasBooking("b0")).isFalse();
+            assertThat(room.isAvailable(START.plusHours(199), START.plusHours(199).plusMinutes(10))).isFalse();
+        }
+        try (var files = Files.list(directory)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".log"))).hasSize(1);
+        }
+    }
+
+    @Test
+    void ignoresTornRecordAtEndOfLog() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Konferensrum");
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            repository.save(room);
+            room.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            repository.save(room);
+        }
+        Path log = directory.resolve("rooms-0.log");
+        byte[] bytes = Files.readAllBytes(log);
+        int lastRecordEnd = lastNonZero(bytes) + 1;
+        bytes[lastRecordEnd - 3] ^= 0x7F;
+        Files.write(log, bytes);
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = repository.findById("room1").orElseThrow();
+            assertThat(room.hasBooking("b1")).isTrue();
+            assertThat(room.hasBooking("b2")).isFalse();
+
+            room.addBooking(new Booking("b3", "room1", START.plusHours(4), START.plusHours(5)));
+            repository.save(room);
+        }
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            assertThat(repository.findById("room1").orElseThrow().hasBooking("b3")).isTrue();
+        }
+    }
+
+    private static int lastNonZero(byte[] bytes) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void restoresRecurringBookingsFromLogAndSnapshot() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Konferensrum");
+            room.addRecurringBooking(RecurringBooking.weekly("s1", "room1", START, START.plusHours(1), START.plusWeeks(52)));
+            room.addRecurringBooking(RecurringBooking.daily("s2", "room1", START.plusHours(2), START.plusHours(3), START.plusDays(5)));
+            repository.save(room);
+            room.cancelOccurrence("s1", START.plusWeeks(2));
+            room.removeRecurringBooking("s2");
+            repository.save(room);
+        }
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = repository.findById("room1").orElseThrow();
+            assertThat(room.hasRecurringBooking("s2")).isFalse();
+            RecurringBooking series = room.getRecurringBooking("s1");
+            assertThat(series.size()).isEqualTo(52);
+            assertThat(series.getExceptions()).containsExactly(START.plusWeeks(2));
+            room.cancelOccurrence("s1", START.plusWeeks(3));
+            repository.save(room);
+            repository.compact();
+        }
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            RecurringBooking series = repository.findById("room1").orElseThrow().getRecurringBooking("s1");
+            assertThat(series.getExceptions()).containsExactly(START.plusWeeks(2), START.plusWeeks(3));
+            assertThat(series.getLastStartTime()).isEqualTo(START.plusWeeks(52));
+        }
+    }
+
+    @Test
+    void deletedRoomStaysDeletedAfterRestart() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Konferensrum");
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            repository.save(room);
+            repository.save(new Room("room2", "Grupprum"));
+            repository.delete("room1");
+            assertThat(repository.findByBookingId("b1")).isEmpty();
+        }
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            assertThat(repository.findById("room1")).isEmpty();
+            assertThat(repository.findAll()).extracting(Room::getId).containsExactly("room2");
+        }
+    }
+
+    @Test
+    void rejectsCompactionThresholdLargerThanOneMapping() {
+        assertThatThrownBy(() -> new FileRoomRepository(directory, FileRoomRepository.MAX_COMPACTION_THRESHOLD + 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Komprimeringsgränsen måste vara mellan 1 och");
+        assertThatThrownBy(() -> new FileRoomRepository(directory, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example;
+
+import com.example.payment.IdempotencyCache;
+import com.example.payment.PaymentApiResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final AtomicInteger charges = new AtomicInteger();
+    private final IdempotencyCache cache = new IdempotencyCache(2, Duration.ofMinutes(10), now::get);
+
+    private PaymentApiResponse charge() {
+        charges.incrementAndGet();
+        return new PaymentApiResponse(true);
+    }
+
+    @Test
+    void answersRepeatedKeyFromMemory() {
+        PaymentApiResponse first = cache.getOrCharge("key1", 100.0, this::charge);
+        PaymentApiResponse second = cache.getOrCharge("key1", 100.0, this::charge);
+
+        assertThat(second).isSameAs(first);
+        assertThat(charges).hasValue(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void chargesAgainAfterExpiry() {
+        cache.getOrCharge("key1", 100.0, this::charge);
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+
+        cache.getOrCharge("key1", 100.0, this::charge);
+
+        assertThat(charges).hasValue(2);
+    }
+
+    @Test
+    void evictsOldestKeyBeyondMaximumSize() {
+        cache.getOrCharge("key1", 1.0, this::charge);
+        cache.getOrCharge("key2", 2.0, this::charge);
+        cache.getOrCharge("key3", 3.0, this::charge);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        cache.getOrCharge("key3", 3.0, this::charge);
+        assertThat(charges).hasValue(3);
+        cache.getOrCharge("key1", 1.0, this::charge);
+        assertThat(charges).hasValue(4);
+    }
+
+    @Test
+    void unsettledPaymentDoesNotStopEvictionOfNewerSettledKeys() {
+        assertThatThrownBy(() -> cache.getOrCharge("key1", 1.0, this::charge, response -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        cache.getOrCharge("key2", 2.0, this::charge);
+        cache.getOrCharge("key3", 3.0, this::charge);
+        cache.getOrCharge("key4", 4.0, this::charge);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(2);
+        cache.getOrCharge("key1", 1.0, this::charge);
+        assertThat(charges).hasValue(4);
+    }
+
+    @Test
+    void evictsOldestUnsettledPaymentWhenNoSettledKeyIsLeft() {
+        for (String key : new String[] {"key1", "key2", "key3"}) {
+            assertThatThrownBy(() -> cache.getOrCharge(key, 1.0, this::charge, response -> {
+                throw new IllegalStateException("db down");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(cache.size()).isEqualTo(2);
+        cache.getOrCharge("key2", 1.0, this::charge, response -> { });
+        assertThat(charges).hasValue(3);
+        cache.getOrCharge("key1", 1.0, this::charge, response -> { });
+        assertThat(charges).hasValue(4);
+    }
+
+    @Test
+    void concurrentDuplicateJoinsInFlightCharge() throws Exception {
+        CountDownLatch chargeStarted = new CountDownLatch(1);
+        CountDownLatch releaseCharge = new CountDownLatch(1);
+        CompletableFuture<PaymentApiResponse> first = CompletableFuture.supplyAsync(() ->
+                cache.getOrCharge("key1", 100.0, () -> {
+                    chargeStarted.countDown();
+                    try {
+                        releaseCharge.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return charge();
+                }));
+        assertThat(chargeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<PaymentApiResponse> duplicate =
+                CompletableFuture.supplyAsync(() -> cache.getOrCharge("key1", 100.0, this::charge));
+
+        releaseCharge.countDown();
+
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        assertThat(charges).hasValue(1);
+    }
+
+    @Test
+    void doesNotRememberChargeThatThrows() {
+        assertThatThrownBy(() -> cache.getOrCharge("key1", 100.0, () -> {
+            throw new IllegalStateException("timeout");
+        })).isInstanceOf(IllegalStateException.class);
+
+        cache.getOrCharge("key1", 100.0, this::charge);
+
+        assertThat(charges).hasValue(1);
+    }
+
+    @Test
+    void retrySettlesChargeWhoseSettleThrewWithoutChargingAgain() {
+        AtomicInteger settled = new AtomicInteger();
+        assertThatThrownBy(() -> cache.getOrCharge("key1", 100.0, this::charge, response -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class);
+        now.addAndGet(Duration.ofMinutes(10).toNanos());
+
+        cache.getOrCharge("key1", 100.0, this::charge, response -> settled.incrementAndGet());
+        cache.getOrCharge("key1", 100.0, this::charge, response -> settled.incrementAndGet());
+
+        assertThat(charges).hasValue(1);
+        assertThat(settled).hasValue(1);
+    }
+
+    @Test
+    void rejectsKeyReusedForDifferentAmount() {
+        cache.getOrCharge("key1", 100.0, this::charge);
+
+        assertThatThrownBy(() -> cache.getOrCharge("key1", 200.0, this::charge))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Idempotency key already used for a different amount");
+    }
+}
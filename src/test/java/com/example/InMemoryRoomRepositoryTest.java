@@ -0,0 +1,158 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InMemoryRoomRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 8, 0);
+
+    private InMemoryRoomRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryRoomRepository();
+    }
+
+    @Test
+    void findByBookingIdReturnsRoomAfterSave() {
+        Room room = new Room("room1", "Konferensrum");
+        repository.save(new Room("room2", "Grupprum"));
+        room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+        repository.save(room);
+
+        assertThat(repository.findByBookingId("b1")).containsSame(room);
+        assertThat(repository.findByBookingId("saknas")).isEmpty();
+    }
+
+    @Test
+    void findByBookingIdForgetsCancelledBookings() {
+        Room room = new Room("room1", "Konferensrum");
+        room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+        repository.save(room);
+
+        room.removeBooking("b1");
+        repository.save(room);
+
+        assertThat(repository.findByBookingId("b1")).isEmpty();
+    }
+
+    @Test
+    void cancelBookingUsesIndexedLookup() {
+        TimeProvider timeProvider = () -> START.minusDays(1);
+        BookingSystem bookingSystem = new BookingSystem(timeProvider, repository, mock(NotificationService.class));
+        repository.save(new Room("room1", "Konferensrum"));
+
+        assertThat(bookingSystem.bookRoom("room1", START, START.plusHours(1))).isTrue();
+        String bookingId = repository.findById("room1").orElseThrow().getBookings().iterator().next().getId();
+
+        assertThat(bookingSystem.cancelBooking(bookingId)).isTrue();
+        assertThat(repository.findByBookingId(bookingId)).isEmpty();
+        assertThat(bookingSystem.cancelBooking(bookingId)).isFalse();
+    }
+
+    @Test
+    void deleteRemovesRoomAndItsBookings() {
+        Room room = new Room("room1", "Konferensrum");
+        room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+        repository.save(room);
+
+        repository.delete("room1");
+
+        assertThat(repository.findById("room1")).isEmpty();
+        assertThat(repository.findByBookingId("b1")).isEmpty();
+    }
+
+    @Test
+    void saveUpdatesIndexWithoutRescanningAllBookings() {
+        Room room = spy(new Room("room1", "Konferensrum"));
+        repository.save(room);
+        for (int i = 0; i < 100; i++) {
+            room.addBooking(new Booking("b" + i, "room1", START.plusHours(i), START.plusHours(i).plusMinutes(30)));
+            repository.save(room);
+        }
+        room.removeBooking("b0");
+        repository.save(room);
+
+        // Bara första sparningen läser alla bokningar, därefter läses rummets journal
+        verify(room, times(1)).changesSince(-1L);
+        verify(room, never()).getBookings();
+        assertThat(repository.findByBookingId("b99")).containsSame(room);
+        assertThat(repository.findByBookingId("b0")).isEmpty();
+    }
+
+    @Test
+    void savingNewRoomInstanceReindexesByBookingKey() {
+        String uuid = "3f2504e0-4f89-41d3-9a0c-0305e82c3301";
+        Room original = new Room("room1", "Konferensrum");
+        original.addBooking(new Booking(uuid, "room1", START, START.plusHours(1)));
+        original.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+        repository.save(original);
+        original.removeBooking("b2");
+
+        Room replacement = new Room("room1", "Konferensrum");
+        replacement.addBooking(new Booking("b3", "room1", START.plusHours(4), START.plusHours(5)));
+        repository.save(replacement);
+        Room other = new Room("room2", "Grupprum");
+        other.addBooking(new Booking("b2", "room2", START, START.plusHours(1)));
+        repository.save(other);
+
+        assertThat(repository.findByBookingId(uuid)).isEmpty();
+        assertThat(repository.findByBookingId("b2")).containsSame(other);
+        assertThat(repository.findByBookingId("b3")).containsSame(replacement);
+    }
+
+    @Test
+    void sameRoomSavedInTwoRepositoriesIsIndexedInBoth() {
+        InMemoryRoomRepository other = new InMemoryRoomRepository();
+        Room room = new Room("room1", "Konferensrum");
+        repository.save(room);
+        other.save(room);
+
+        room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+        repository.save(room);
+        other.save(room);
+
+        assertThat(repository.findByBookingId("b1")).containsSame(room);
+        assertThat(other.findByBookingId("b1")).containsSame(room);
+
+        room.removeBooking("b1");
+        other.save(room);
+        room.addBooking(new Booking("b2", "room1", START, START.plusHours(1)));
+        repository.save(room);
+        other.save(room);
+
+        assertThat(repository.findByBookingId("b1")).isEmpty();
+        assertThat(other.findByBookingId("b1")).isEmpty();
+        assertThat(repository.findByBookingId("b2")).containsSame(room);
+        assertThat(other.findByBookingId("b2")).containsSame(room);
+    }
+
+    @Test
+    void repositoryFarBehindRoomReindexesAllBookings() {
+        InMemoryRoomRepository other = new InMemoryRoomRepository();
+        Room room = new Room("room1", "Konferensrum");
+        room.addBooking(new Booking("kvar", "room1", START, START.plusHours(1)));
+        room.addBooking(new Booking("borttagen", "room1", START.plusHours(1), START.plusHours(2)));
+        repository.save(room);
+        other.save(room);
+
+        room.removeBooking("borttagen");
+        for (int i = 0; i < Room.JOURNAL_CAPACITY; i++) {
+            room.addBooking(new Booking("b" + i, "room1", START.plusDays(1).plusMinutes(i), START.plusDays(1).plusMinutes(i)));
+            repository.save(room);
+        }
+        other.save(room);
+
+        assertThat(other.findByBookingId("kvar")).containsSame(room);
+        assertThat(other.findByBookingId("borttagen")).isEmpty();
+        assertThat(other.findByBookingId("b0")).containsSame(room);
+        assertThat(repository.findByBookingId("borttagen")).isEmpty();
+        assertThat(repository.findByBookingId("b" + (Room.JOURNAL_CAPACITY - 1))).containsSame(room);
+    }
+}
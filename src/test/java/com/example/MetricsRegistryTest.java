@@ -0,0 +1,88 @@
+package com.example;
+
+import com.example.metrics.LatencyHistogram;
+import com.example.metrics.Metrics;
+import com.example.metrics.MetricsExporter;
+import com.example.metrics.MetricsRegistry;
+import com.example.metrics.Timer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+
+    @Test
+    void countsEventsByName() {
+        registry.counter("booking.booked").increment();
+        registry.counter("booking.booked").add(2);
+
+        assertThat(registry.getCount("booking.booked")).isEqualTo(3);
+        assertThat(registry.getCount("booking.cancelled")).isZero();
+    }
+
+    @Test
+    void reportsPercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = registry.timer("room.isAvailable");
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertThat(histogram.count()).isEqualTo(1000);
+        assertThat(histogram.max()).isEqualTo(1_000_000);
+        assertThat(histogram.mean()).isEqualTo(500_500.0);
+        assertThat(histogram.valueAtPercentile(50)).isCloseTo(500_000, withinPercentage(3.2));
+        assertThat(histogram.valueAtPercentile(99)).isCloseTo(990_000, withinPercentage(3.2));
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo(1_000_000);
+    }
+
+    @Test
+    void reportsSmallValuesExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(3);
+        histogram.record(7);
+        histogram.record(-5);
+
+        assertThat(histogram.valueAtPercentile(0)).isZero();
+        assertThat(histogram.valueAtPercentile(60)).isEqualTo(3);
+        assertThat(histogram.valueAtPercentile(100)).isEqualTo(7);
+        assertThat(new LatencyHistogram().valueAtPercentile(99)).isZero();
+    }
+
+    @Test
+    void exportsEveryMeterSortedByName() {
+        registry.counter("b").increment();
+        registry.counter("a").add(5);
+        registry.timer("t").record(10);
+        List<String> exported = new ArrayList<>();
+
+        registry.export(new MetricsExporter() {
+            @Override
+            public void exportCounter(String name, long count) {
+                exported.add(name + "=" + count);
+            }
+
+            @Override
+            public void exportHistogram(String name, LatencyHistogram histogram) {
+                exported.add(name + ":" + histogram.count());
+            }
+        });
+
+        assertThat(exported).containsExactly("a=5", "b=1", "t:1");
+    }
+
+    @Test
+    void noopTimerDoesNotReadTheClock() {
+        Timer timer = Metrics.NOOP.timer("booking.book");
+
+        assertThat(timer.isEnabled()).isFalse();
+        assertThat(registry.timer("booking.book").isEnabled()).isTrue();
+        assertThat(timer.start()).isZero();
+        timer.stop(0);
+        Metrics.NOOP.counter("booking.booked").increment();
+    }
+}
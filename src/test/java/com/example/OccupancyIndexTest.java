@@ -0,0 +1,122 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static com.example.OccupancyIndex.Answer.*;
+import static org.assertj.core.api.Assertions.*;
+
+class OccupancyIndexTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2025, 3, 3, 9, 0);
+
+    private final OccupancyIndex index = new OccupancyIndex(Duration.ofMinutes(15));
+
+    @Test
+    void answersFromSlotsAndLeavesPartlyCoveredSlotsToExactCheck() {
+        Room room = new Room("room1", "Rum 1");
+        room.addBooking(new Booking("b1", "room1", NINE.plusMinutes(20), NINE.plusMinutes(40)));
+
+        assertThat(check(room, NINE, NINE.plusMinutes(14))).isEqualTo(FREE);
+        assertThat(check(room, NINE.plusMinutes(45), NINE.plusHours(2))).isEqualTo(FREE);
+        assertThat(check(room, NINE, NINE.plusHours(1))).isEqualTo(BUSY);
+        // Luckan 09:15-09:30 är satt men bara delvis täckt av frågan
+        assertThat(check(room, NINE.plusMinutes(16), NINE.plusMinutes(19))).isEqualTo(UNKNOWN);
+        assertThat(check(room, NINE.plusMinutes(41), NINE.plusMinutes(44))).isEqualTo(UNKNOWN);
+        assertThat(check(room, NINE.plusDays(1), NINE.plusDays(1).plusHours(1))).isEqualTo(FREE);
+    }
+
+    @Test
+    void followsBookingsAndCancellationsIncrementally() {
+        Room room = new Room("room1", "Rum 1");
+        assertThat(check(room, NINE, NINE.plusHours(1))).isEqualTo(FREE);
+
+        Booking first = new Booking("b1", "room1", NINE, NINE.plusMinutes(20));
+        Booking second = new Booking("b2", "room1", NINE.plusMinutes(25), NINE.plusMinutes(50));
+        book(room, first);
+        book(room, second);
+        assertThat(check(room, NINE.plusMinutes(15), NINE.plusMinutes(30))).isEqualTo(BUSY);
+
+        // Luckan 09:15-09:30 delas av bokningarna och ska vara kvar när den första avbokas
+        cancel(room, first);
+        assertThat(check(room, NINE, NINE.plusMinutes(14))).isEqualTo(FREE);
+        assertThat(check(room, NINE.plusMinutes(15), NINE.plusMinutes(30))).isEqualTo(BUSY);
+
+        cancel(room, second);
+        assertThat(check(room, NINE, NINE.plusHours(1))).isEqualTo(FREE);
+    }
+
+    @Test
+    void reindexesRoomsChangedOutsideTheIndex() {
+        Room room = new Room("room1", "Rum 1");
+        assertThat(check(room, NINE, NINE.plusHours(1))).isEqualTo(FREE);
+
+        room.addBooking(new Booking("b1", "room1", NINE, NINE.plusHours(1)));
+        assertThat(check(room, NINE, NINE.plusHours(1))).isEqualTo(BUSY);
+
+        Room replacement = new Room("room1", "Rum 1");
+        assertThat(check(replacement, NINE, NINE.plusHours(1))).isEqualTo(FREE);
+
+        // b3 läggs till utan att indexet får veta det, så booked ser två ändringar och indexerar om rummet
+        Booking later = new Booking("b2", "room1", NINE.plusHours(2), NINE.plusHours(3));
+        long modifications = replacement.modificationCount();
+        replacement.addBooking(new Booking("b3", "room1", NINE.plusHours(4), NINE.plusHours(5)));
+        replacement.addBooking(later);
+        index.booked(replacement, later, modifications);
+        assertThat(check(replacement, NINE.plusHours(4), NINE.plusHours(5))).isEqualTo(BUSY);
+    }
+
+    @Test
+    void roomsWithSeriesOrVeryLongBookingsAreCheckedExactly() {
+        Room withSeries = new Room("room1", "Rum 1");
+        withSeries.addRecurringBooking(RecurringBooking.weekly("s1", "room1", NINE, NINE.plusHours(1), NINE.plusYears(1)));
+        Room withLongBooking = new Room("room2", "Rum 2");
+        withLongBooking.addBooking(new Booking("b1", "room2", NINE, NINE.plusDays(OccupancyIndex.MAX_MARKED_DAYS)));
+
+        assertThat(check(withSeries, NINE.plusDays(1), NINE.plusDays(1).plusHours(1))).isEqualTo(UNKNOWN);
+        assertThat(check(withLongBooking, NINE.plusDays(1), NINE.plusDays(1).plusHours(1))).isEqualTo(UNKNOWN);
+
+        withSeries.removeRecurringBooking("s1");
+        assertThat(check(withSeries, NINE.plusDays(1), NINE.plusDays(1).plusHours(1))).isEqualTo(FREE);
+    }
+
+    @Test
+    void forgottenDaysAndLongQueriesAreNotAnsweredFromTheIndex() {
+        Room room = new Room("room1", "Rum 1");
+        book(room, new Booking("b1", "room1", NINE, NINE.plusHours(1)));
+        book(room, new Booking("b2", "room1", NINE.plusDays(1), NINE.plusDays(1).plusHours(1)));
+
+        index.forgetBefore(NINE.plusDays(1));
+
+        assertThat(index.query(NINE, NINE.plusHours(1))).isNull();
+        assertThat(index.query(NINE.plusDays(1), NINE.plusDays(1 + OccupancyIndex.MAX_QUERY_DAYS))).isNull();
+        assertThat(check(room, NINE.plusDays(1), NINE.plusDays(1).plusHours(1))).isEqualTo(BUSY);
+    }
+
+    @Test
+    void slotMustDivideADay() {
+        assertThatThrownBy(() -> new OccupancyIndex(Duration.ofMinutes(7)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Tidsluckan måste vara positiv och gå jämnt upp i ett dygn");
+        assertThatThrownBy(() -> new OccupancyIndex(Duration.ZERO))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private OccupancyIndex.Answer check(Room room, LocalDateTime start, LocalDateTime end) {
+        return index.query(start, end).check(room);
+    }
+
+    private void book(Room room, Booking booking) {
+        long modifications = room.modificationCount();
+        room.addBooking(booking);
+        index.booked(room, booking, modifications);
+    }
+
+    private void cancel(Room room, Booking booking) {
+        long modifications = room.modificationCount();
+        room.removeBooking(booking.getId());
+        index.cancelled(room, booking, modifications);
+    }
+}
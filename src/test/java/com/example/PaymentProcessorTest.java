@@ -1,9 +1,21 @@
 package com.example;
 
+import com.example.metrics.MetricsRegistry;
 import com.example.payment.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -66,4 +78,209 @@ public class PaymentProcessorTest {
         assertNotNull(response, "Response should not be null");
         assertTrue(response.isSuccess(), "The mock implementation should return a successful response");
     }
+
+    @Test
+    void testProcessPaymentsReturnsResultsInInputOrder() throws InterruptedException {
+        when(paymentService.charge(anyString(), anyDouble()))
+                .thenAnswer(invocation -> new PaymentApiResponse(invocation.<Double>getArgument(1) > 0));
+        PaymentProcessor processor = new PaymentProcessor(paymentService, databaseService, emailService, "test_api_key", 4, 2);
+
+        List<Boolean> results = processor.processPayments(List.of(10.0, -1.0, 20.0, 30.0, -2.0, 40.0, 50.0));
+
+        assertEquals(List.of(true, false, true, true, false, true, true), results);
+        ArgumentCaptor<List<PaymentRecord>> batches = ArgumentCaptor.captor();
+        verify(databaseService, atLeast(3)).savePayments(batches.capture());
+        List<Double> saved = new ArrayList<>();
+        for (List<PaymentRecord> batch : batches.getAllValues()) {
+            assertTrue(batch.size() <= 2, "Batches should not exceed the configured size");
+            batch.forEach(payment -> saved.add(payment.getAmount()));
+        }
+        assertEquals(5, saved.size());
+        assertTrue(saved.containsAll(List.of(10.0, 20.0, 30.0, 40.0, 50.0)));
+        verify(databaseService, never()).savePayment(anyDouble(), anyString());
+        verify(emailService, times(5)).sendPaymentConfirmation(eq("user@example.com"), anyDouble());
+        verify(emailService, never()).sendPaymentConfirmation(anyString(), eq(-1.0));
+    }
+
+    @Test
+    void testProcessPaymentsRespectsInFlightLimit() throws InterruptedException {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxObserved = new AtomicInteger();
+        when(paymentService.charge(anyString(), anyDouble())).thenAnswer(invocation -> {
+            maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            inFlight.decrementAndGet();
+            return new PaymentApiResponse(true);
+        });
+        PaymentProcessor processor = new PaymentProcessor(paymentService, databaseService, emailService, "test_api_key", 3, 100);
+
+        List<Boolean> results = processor.processPayments(Collections.nCopies(30, 100.0));
+
+        assertEquals(30, results.size());
+        assertTrue(results.stream().allMatch(Boolean::booleanValue));
+        assertTrue(maxObserved.get() <= 3, "At most three charges should run at once");
+    }
+
+    @Test
+    void testProcessPaymentsCountsThrowingChargeAsFailed() throws InterruptedException {
+        when(paymentService.charge(anyString(), eq(1.0))).thenThrow(new IllegalStateException("timeout"));
+        when(paymentService.charge(anyString(), eq(2.0))).thenReturn(new PaymentApiResponse(true));
+
+        List<Boolean> results = paymentProcessor.processPayments(List.of(1.0, 2.0));
+
+        assertEquals(List.of(false, true), results);
+        verify(emailService).sendPaymentConfirmation("user@example.com", 2.0);
+    }
+
+    @Test
+    void testProcessPaymentsReturnsResultsWhenConfirmationFails() throws InterruptedException {
+        when(paymentService.charge(anyString(), anyDouble())).thenReturn(new PaymentApiResponse(true));
+        doThrow(new IllegalStateException("smtp down")).when(emailService).sendPaymentConfirmation(anyString(), eq(1.0));
+        MetricsRegistry metrics = new MetricsRegistry();
+        PaymentProcessor processor = new PaymentProcessor(paymentService, databaseService, emailService, "test_api_key",
+                4, 1, new IdempotencyCache(10, Duration.ofMinutes(1)), metrics);
+
+        List<Boolean> results = processor.processPayments(List.of(1.0, 2.0, 3.0));
+
+        assertEquals(List.of(true, true, true), results);
+        verify(emailService).sendPaymentConfirmation("user@example.com", 2.0);
+        verify(emailService).sendPaymentConfirmation("user@example.com", 3.0);
+        assertEquals(1, metrics.getCount("payment.confirmationFailures"));
+    }
+
+    @Test
+    void testProcessPaymentsReportsChargedButUnsavedPayments() throws InterruptedException {
+        when(paymentService.charge(anyString(), anyDouble()))
+                .thenAnswer(invocation -> new PaymentApiResponse(invocation.<Double>getArgument(1) > 0));
+        IllegalStateException dbDown = new IllegalStateException("db down");
+        doAnswer(invocation -> {
+            List<PaymentRecord> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(payment -> payment.getAmount() == 20.0)) {
+                throw dbDown;
+            }
+            return null;
+        }).when(databaseService).savePayments(anyList());
+        PaymentProcessor processor = new PaymentProcessor(paymentService, databaseService, emailService, "test_api_key", 4, 1);
+
+        UnsavedPaymentsException e = assertThrows(UnsavedPaymentsException.class,
+                () -> processor.processPayments(List.of(10.0, -1.0, 20.0, 30.0)));
+
+        assertEquals(List.of(true, false, true, true), e.getResults());
+        assertEquals(List.of(2), e.getUnsavedIndexes());
+        assertSame(dbDown, e.getCause());
+        verify(emailService).sendPaymentConfirmation("user@example.com", 10.0);
+        verify(emailService).sendPaymentConfirmation("user@example.com", 30.0);
+        verify(emailService, never()).sendPaymentConfirmation(anyString(), eq(20.0));
+    }
+
+    @Test
+    void testDefaultSavePaymentsSavesEachPayment() {
+        DatabaseService database = mock(DatabaseService.class, CALLS_REAL_METHODS);
+        doNothing().when(database).savePayment(anyDouble(), anyString());
+
+        database.savePayments(List.of(new PaymentRecord(1.0, "SUCCESS"), new PaymentRecord(2.0, "SUCCESS")));
+
+        verify(database).savePayment(1.0, "SUCCESS");
+        verify(database).savePayment(2.0, "SUCCESS");
+    }
+
+    @Test
+    void testSuccessfulAsyncPayment() throws Exception {
+        when(paymentService.chargeAsync(anyString(), anyDouble()))
+                .thenReturn(CompletableFuture.completedFuture(new PaymentApiResponse(true)));
+
+        boolean result = paymentProcessor.processPaymentAsync(100.0).get(5, TimeUnit.SECONDS);
+
+        assertTrue(result);
+        verify(paymentService, never()).charge(anyString(), anyDouble());
+        verify(databaseService).savePayment(100.0, "SUCCESS");
+        verify(emailService).sendPaymentConfirmation("user@example.com", 100.0);
+    }
+
+    @Test
+    void testFailedAsyncPayment() throws Exception {
+        when(paymentService.chargeAsync(anyString(), anyDouble()))
+                .thenReturn(CompletableFuture.completedFuture(new PaymentApiResponse(false)));
+
+        boolean result = paymentProcessor.processPaymentAsync(100.0).get(5, TimeUnit.SECONDS);
+
+        assertFalse(result);
+        verify(databaseService, never()).savePayment(anyDouble(), anyString());
+        verify(emailService, never()).sendPaymentConfirmation(anyString(), anyDouble());
+    }
+
+    @Test
+    void testAsyncPaymentCompletesExceptionallyWhenChargeFails() {
+        when(paymentService.chargeAsync(anyString(), anyDouble()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("timeout")));
+
+        CompletableFuture<Boolean> result = paymentProcessor.processPaymentAsync(100.0);
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        verify(databaseService, never()).savePayment(anyDouble(), anyString());
+    }
+
+    @Test
+    void testChargeAsyncAdaptsSynchronousService() throws Exception {
+        PaymentService paymentService = new PaymentServiceImpl();
+
+        PaymentApiResponse response = paymentService.chargeAsync("dummy_api_key", 100.0).get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.isSuccess(), "The adapter should return the synchronous result");
+    }
+
+    @Test
+    void testRetriedPaymentIsChargedAndSavedOnce() {
+        when(paymentService.charge(anyString(), anyDouble())).thenReturn(new PaymentApiResponse(true));
+
+        assertTrue(paymentProcessor.processPayment("order-1", 100.0));
+        assertTrue(paymentProcessor.processPayment("order-1", 100.0));
+        assertTrue(paymentProcessor.processPayment("order-2", 100.0));
+
+        verify(paymentService, times(2)).charge("test_api_key", 100.0);
+        verify(databaseService, times(2)).savePayment(100.0, "SUCCESS");
+        verify(emailService, times(2)).sendPaymentConfirmation("user@example.com", 100.0);
+    }
+
+    @Test
+    void testRetryFinishesPaymentWhoseSaveFailed() {
+        when(paymentService.charge(anyString(), anyDouble())).thenReturn(new PaymentApiResponse(true));
+        doThrow(new IllegalStateException("db down")).doNothing().when(databaseService).savePayment(100.0, "SUCCESS");
+
+        assertThrows(IllegalStateException.class, () -> paymentProcessor.processPayment("order-1", 100.0));
+        assertTrue(paymentProcessor.processPayment("order-1", 100.0));
+        assertTrue(paymentProcessor.processPayment("order-1", 100.0));
+
+        verify(paymentService, times(1)).charge("test_api_key", 100.0);
+        verify(databaseService, times(2)).savePayment(100.0, "SUCCESS");
+        verify(emailService, times(1)).sendPaymentConfirmation("user@example.com", 100.0);
+    }
+
+    @Test
+    void testRetriedFailedPaymentReturnsSameResult() {
+        when(paymentService.charge(anyString(), anyDouble())).thenReturn(new PaymentApiResponse(false));
+
+        assertFalse(paymentProcessor.processPayment("order-1", 100.0));
+        assertFalse(paymentProcessor.processPayment("order-1", 100.0));
+
+        verify(paymentService).charge("test_api_key", 100.0);
+        verify(databaseService, never()).savePayment(anyDouble(), anyString());
+    }
+
+    @Test
+    void testProcessPaymentRecordsMetrics() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        PaymentProcessor processor = new PaymentProcessor(paymentService, databaseService, emailService, "test_api_key", metrics);
+        when(paymentService.charge(anyString(), anyDouble()))
+                .thenReturn(new PaymentApiResponse(true), new PaymentApiResponse(false));
+
+        processor.processPayment(100.0);
+        processor.processPayment(100.0);
+
+        assertEquals(1, metrics.getCount("payment.succeeded"));
+        assertEquals(1, metrics.getCount("payment.declined"));
+        assertEquals(2, metrics.getHistogram("payment.charge").count());
+        assertEquals(2, metrics.getHistogram("payment.process").count());
+    }
 }
@@ -0,0 +1,99 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RecurringBookingTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 3, 9, 0);
+
+    private final RecurringBooking weekly = RecurringBooking.weekly("s1", "room1",
+            BASE, BASE.plusHours(1), BASE.plusWeeks(3));
+
+    @Test
+    void overlapsOnlyOccurrencesWithinTheSeries() {
+        assertThat(weekly.size()).isEqualTo(4);
+        assertThat(weekly.getLastStartTime()).isEqualTo(BASE.plusWeeks(3));
+        assertThat(weekly.overlaps(BASE.plusWeeks(2).plusMinutes(30), BASE.plusWeeks(2).plusHours(2))).isTrue();
+        assertThat(weekly.overlaps(BASE.plusWeeks(2).plusHours(1), BASE.plusWeeks(2).plusHours(2))).isTrue();
+        assertThat(weekly.overlaps(BASE.plusDays(1), BASE.plusDays(6))).isFalse();
+        assertThat(weekly.overlaps(BASE.minusHours(2), BASE.minusMinutes(1))).isFalse();
+        assertThat(weekly.overlaps(BASE.plusWeeks(4), BASE.plusWeeks(4).plusHours(1))).isFalse();
+    }
+
+    @Test
+    void occurrencesAreExpandedOnlyWithinTheWindow() {
+        assertThat(weekly.getOccurrences(BASE.plusDays(1), BASE.plusWeeks(3)).map(Booking::getStartTime))
+                .containsExactly(BASE.plusWeeks(1), BASE.plusWeeks(2));
+        assertThat(weekly.getOccurrences(BASE, BASE.plusYears(1)).map(Booking::getId))
+                .containsExactly("s1#0", "s1#1", "s1#2", "s1#3");
+    }
+
+    @Test
+    void exceptionsRemoveSingleOccurrences() {
+        RecurringBooking withException = weekly.withException(BASE.plusWeeks(1));
+
+        assertThat(withException.size()).isEqualTo(3);
+        assertThat(withException.getExceptions()).containsExactly(BASE.plusWeeks(1));
+        assertThat(withException.hasOccurrence(BASE.plusWeeks(1))).isFalse();
+        assertThat(withException.overlaps(BASE.plusWeeks(1), BASE.plusWeeks(1).plusHours(1))).isFalse();
+        assertThat(withException.getOccurrences(BASE, BASE.plusWeeks(3)).map(Booking::getStartTime))
+                .containsExactly(BASE, BASE.plusWeeks(2));
+        assertThat(weekly.hasOccurrence(BASE.plusWeeks(1))).isTrue();
+        assertThat(withException.withException(BASE.plusWeeks(1))).isSameAs(withException);
+        assertThatThrownBy(() -> weekly.withException(BASE.plusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Serien har inget tillfälle vid");
+    }
+
+    @Test
+    void matchesExpandedOccurrencesForRandomQueries() {
+        Random random = new Random(42);
+        RecurringBooking series = new RecurringBooking("s2", "room1", BASE, BASE.plusMinutes(45),
+                Duration.ofHours(5), BASE.plusDays(30));
+        for (int i = 0; i < 40; i++) {
+            series = series.withException(BASE.plusHours(5L * random.nextInt(144)));
+        }
+        List<Booking> expanded = new ArrayList<>();
+        for (int i = 0; i <= 144; i++) {
+            LocalDateTime start = BASE.plusHours(5L * i);
+            if (series.hasOccurrence(start)) {
+                expanded.add(new Booking("x", "room1", start, start.plusMinutes(45)));
+            }
+        }
+        assertThat(expanded).hasSize((int) series.size());
+
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime start = BASE.minusHours(5).plusMinutes(random.nextInt(32 * 24 * 60));
+            LocalDateTime end = start.plusMinutes(random.nextInt(600));
+            boolean expected = expanded.stream().anyMatch(booking -> booking.overlaps(start, end));
+            assertThat(series.overlaps(start, end)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void rejectsInvalidRules() {
+        assertThatThrownBy(() -> RecurringBooking.daily("s", "room1", BASE, BASE.plusDays(1), BASE.plusWeeks(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Ett tillfälle måste sluta innan nästa börjar");
+        assertThatThrownBy(() -> new RecurringBooking("s", "room1", BASE, BASE.plusHours(1), Duration.ZERO, BASE.plusWeeks(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Perioden måste vara positiv");
+        assertThatThrownBy(() -> RecurringBooking.weekly("s", "room1", BASE, BASE.plusHours(1), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Serien måste ha ett slutdatum");
+        assertThatThrownBy(() -> RecurringBooking.weekly("s", "room1", BASE, BASE.plusHours(1), BASE.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Serien måste sluta efter första tillfället");
+        assertThatThrownBy(() -> RecurringBooking.weekly("s", "room1", BASE, BASE.minusHours(1), BASE.plusWeeks(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sluttid måste vara efter starttid");
+    }
+}
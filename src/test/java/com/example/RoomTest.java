@@ -0,0 +1,184 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RoomTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 3, 3, 8, 0);
+
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        room = new Room("room1", "Konferensrum");
+    }
+
+    @Test
+    void isAvailableWhenRoomHasNoBookings() {
+        assertThat(room.isAvailable(BASE, BASE.plusHours(1))).isTrue();
+    }
+
+    @Test
+    void isNotAvailableWhenBookingOverlaps() {
+        room.addBooking(new Booking("b1", "room1", BASE.plusHours(1), BASE.plusHours(2)));
+
+        assertThat(room.isAvailable(BASE.plusMinutes(90), BASE.plusHours(3))).isFalse();
+        assertThat(room.isAvailable(BASE, BASE.plusHours(1))).isFalse();
+        assertThat(room.isAvailable(BASE.plusHours(2), BASE.plusHours(3))).isFalse();
+        assertThat(room.isAvailable(BASE, BASE.plusMinutes(59))).isTrue();
+        assertThat(room.isAvailable(BASE.plusMinutes(121), BASE.plusHours(3))).isTrue();
+    }
+
+    @Test
+    void removeBookingFreesTheSlot() {
+        room.addBooking(new Booking("b1", "room1", BASE, BASE.plusHours(1)));
+        room.removeBooking("b1");
+
+        assertThat(room.hasBooking("b1")).isFalse();
+        assertThat(room.isAvailable(BASE, BASE.plusHours(1))).isTrue();
+    }
+
+    @Test
+    void getBookingReturnsBookingById() {
+        Booking booking = new Booking("b1", "room1", BASE, BASE.plusHours(1));
+        room.addBooking(booking);
+
+        assertThat(room.hasBooking("b1")).isTrue();
+        assertThat(room.getBooking("b1")).isSameAs(booking);
+        assertThatThrownBy(() -> room.getBooking("saknas"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Bokning finns inte");
+    }
+
+    @Test
+    void removingBookingKeepsNeighbourInSharedSlotOccupied() {
+        room.addBooking(new Booking("b1", "room1", BASE, BASE.plusMinutes(5)));
+        room.addBooking(new Booking("b2", "room1", BASE.plusMinutes(7), BASE.plusMinutes(10)));
+        room.removeBooking("b1");
+
+        assertThat(room.isAvailable(BASE, BASE.plusMinutes(5))).isTrue();
+        assertThat(room.isAvailable(BASE.plusMinutes(8), BASE.plusMinutes(9))).isFalse();
+    }
+
+    @Test
+    void isAvailableHandlesBookingsSpanningSeveralDays() {
+        Room hourlyRoom = new Room("room2", "Aula");
+        hourlyRoom.addBooking(new Booking("b1", "room2", BASE.minusDays(1), BASE.plusDays(2)));
+
+        assertThat(hourlyRoom.isAvailable(BASE.plusDays(1), BASE.plusDays(1).plusHours(1))).isFalse();
+        assertThat(hourlyRoom.isAvailable(BASE.plusDays(3), BASE.plusDays(4))).isTrue();
+
+        hourlyRoom.removeBooking("b1");
+
+        assertThat(hourlyRoom.isAvailable(BASE.plusDays(1), BASE.plusDays(1).plusHours(1))).isTrue();
+    }
+
+    @Test
+    void isAvailableMatchesLinearScanForManyBookings() {
+        Random random = new Random(42);
+        List<Booking> added = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            Booking booking = new Booking("b" + i, "room1", start, start.plusMinutes(1 + random.nextInt(240)));
+            room.addBooking(booking);
+            added.add(booking);
+        }
+        for (int i = 0; i < 500; i++) {
+            Booking removed = added.remove(random.nextInt(added.size()));
+            room.removeBooking(removed.getId());
+        }
+
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            LocalDateTime end = start.plusMinutes(random.nextInt(240));
+            boolean expected = added.stream().noneMatch(booking -> booking.overlaps(start, end));
+
+            assertThat(room.isAvailable(start, end)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void getBookingsReturnsOverlappingBookingsInStartOrder() {
+        room.addBooking(new Booking("late", "room1", BASE.plusHours(5), BASE.plusHours(6)));
+        room.addBooking(new Booking("early", "room1", BASE, BASE.plusHours(1)));
+        room.addBooking(new Booking("long", "room1", BASE.minusDays(1), BASE.plusHours(3)));
+        room.addBooking(new Booking("atEnd", "room1", BASE.plusHours(4), BASE.plusHours(5)));
+
+        assertThat(room.getBookings(BASE.plusHours(1), BASE.plusHours(4)).map(Booking::getId))
+                .containsExactly("long", "early");
+        assertThat(room.getBookings(BASE.plusHours(4), BASE.plusHours(4))).isEmpty();
+        assertThatThrownBy(() -> room.getBookings(BASE.plusHours(1), BASE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sluttid måste vara efter starttid");
+    }
+
+    @Test
+    void getBookingsReadsFromSnapshot() {
+        room.addBooking(new Booking("b1", "room1", BASE, BASE.plusHours(1)));
+        Stream<Booking> bookings = room.getBookings(BASE, BASE.plusDays(1));
+
+        room.addBooking(new Booking("b2", "room1", BASE.plusHours(2), BASE.plusHours(3)));
+        room.removeBooking("b1");
+
+        assertThat(bookings.map(Booking::getId)).containsExactly("b1");
+    }
+
+    @Test
+    void getBookingsMatchesLinearScanForManyBookings() {
+        Random random = new Random(7);
+        List<Booking> added = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            LocalDateTime start = BASE.plusMinutes(random.nextInt(100_000));
+            Booking booking = new Booking("b" + i, "room1", start, start.plusMinutes(1 + random.nextInt(2_000)));
+            room.addBooking(booking);
+            added.add(booking);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = BASE.plusMinutes(random.nextInt(100_000));
+            LocalDateTime to = from.plusMinutes(random.nextInt(3_000));
+            List<String> expected = added.stream()
+                    .filter(booking -> booking.getStartTime().isBefore(to) && !booking.getEndTime().isBefore(from))
+                    .sorted(Comparator.comparing(Booking::getStartTime).thenComparing(Booking::getId))
+                    .map(Booking::getId)
+                    .toList();
+
+            assertThat(room.getBookings(from, to).map(Booking::getId)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void recurringBookingBlocksEveryOccurrenceUntilCancelled() {
+        room.addRecurringBooking(RecurringBooking.weekly("s1", "room1", BASE, BASE.plusHours(1), BASE.plusWeeks(52)));
+        room.addBooking(new Booking("b1", "room1", BASE.plusDays(1), BASE.plusDays(1).plusHours(1)));
+
+        assertThat(room.isAvailable(BASE.plusWeeks(30).plusMinutes(30), BASE.plusWeeks(30).plusHours(2))).isFalse();
+        assertThat(room.isAvailable(BASE.plusWeeks(30).plusHours(2), BASE.plusWeeks(30).plusHours(3))).isTrue();
+        assertThat(room.isAvailable(BASE.plusWeeks(53), BASE.plusWeeks(53).plusHours(1))).isTrue();
+        assertThat(room.getBookings(BASE, BASE.plusWeeks(2)).map(Booking::getId))
+                .containsExactly("s1#0", "b1", "s1#1");
+        assertThat(room.getBookings()).hasSize(1);
+
+        assertThat(room.cancelOccurrence("s1", BASE.plusWeeks(30))).isTrue();
+        assertThat(room.cancelOccurrence("s1", BASE.plusWeeks(30))).isFalse();
+        assertThat(room.isAvailable(BASE.plusWeeks(30), BASE.plusWeeks(30).plusHours(1))).isTrue();
+        assertThat(room.isAvailable(BASE.plusWeeks(31), BASE.plusWeeks(31).plusHours(1))).isFalse();
+
+        assertThat(room.removeRecurringBooking("s1")).isTrue();
+        assertThat(room.hasRecurringBooking("s1")).isFalse();
+        assertThat(room.isAvailable(BASE.plusWeeks(31), BASE.plusWeeks(31).plusHours(1))).isTrue();
+        assertThatThrownBy(() -> room.getRecurringBooking("s1"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Serien finns inte");
+    }
+}
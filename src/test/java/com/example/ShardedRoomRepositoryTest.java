@@ -0,0 +1,186 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShardedRoomRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 3, 8, 0);
+    private static final int ROOMS = 4_000;
+
+    // Varje shard är ett eget repository i processen och står för en nod
+    private final Map<String, InMemoryRoomRepository> shards = new LinkedHashMap<>();
+    private ShardedRoomRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 4; i++) {
+            shards.put("shard" + i, new InMemoryRoomRepository());
+        }
+        repository = new ShardedRoomRepository(shards);
+        for (int i = 0; i < ROOMS; i++) {
+            repository.save(new Room("room" + i, "Rum " + i));
+        }
+    }
+
+    @Test
+    void routesEachRoomToExactlyOneShard() {
+        for (int i = 0; i < ROOMS; i++) {
+            String roomId = "room" + i;
+            String owner = repository.shardNameFor(roomId);
+            shards.forEach((name, shard) ->
+                    assertThat(shard.findById(roomId).isPresent()).isEqualTo(name.equals(owner)));
+            assertThat(repository.findById(roomId)).map(Room::getId).contains(roomId);
+        }
+        // Med virtuella noder får varje shard ungefär en fjärdedel av rummen
+        shards.values().forEach(shard -> assertThat(shard.findAll()).hasSizeBetween(ROOMS / 4 * 7 / 10, ROOMS / 4 * 13 / 10));
+    }
+
+    @Test
+    void findAllGathersRoomsFromAllShards() {
+        assertThat(repository.findAll()).hasSize(ROOMS)
+                .extracting(Room::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void findByBookingIdAndDeleteReachTheOwningShard() {
+        Room room = repository.findById("room42").orElseThrow();
+        room.addBooking(new Booking("b1", "room42", START, START.plusHours(1)));
+        repository.save(room);
+
+        assertThat(repository.findByBookingId("b1")).containsSame(room);
+        assertThat(repository.findByBookingId("saknas")).isEmpty();
+
+        repository.delete("room42");
+        assertThat(repository.findById("room42")).isEmpty();
+        assertThat(repository.findByBookingId("b1")).isEmpty();
+        assertThat(repository.findAll()).hasSize(ROOMS - 1);
+    }
+
+    @Test
+    void addingShardMovesOnlyRoomsItTakesOver() {
+        Map<String, String> before = owners();
+        InMemoryRoomRepository added = new InMemoryRoomRepository();
+
+        int moved = repository.addShard("shard4", added);
+
+        Map<String, String> after = owners();
+        assertThat(added.findAll()).hasSize(moved);
+        assertThat(moved).isBetween(ROOMS / 5 * 7 / 10, ROOMS / 5 * 13 / 10);
+        after.forEach((roomId, owner) -> {
+            if (!owner.equals(before.get(roomId))) {
+                assertThat(owner).isEqualTo("shard4");
+            }
+            assertThat(repository.findById(roomId)).isPresent();
+        });
+        shards.values().forEach(shard -> shard.findAll()
+                .forEach(room -> assertThat(repository.shardNameFor(room.getId())).isNotEqualTo("shard4")));
+        assertThat(repository.findAll()).hasSize(ROOMS);
+    }
+
+    @Test
+    void removingShardMovesOnlyItsOwnRooms() {
+        Map<String, String> before = owners();
+        int ownedByRemoved = shards.get("shard2").findAll().size();
+
+        assertThat(repository.removeShard("shard2")).isEqualTo(ownedByRemoved);
+
+        owners().forEach((roomId, owner) -> {
+            if (!before.get(roomId).equals("shard2")) {
+                assertThat(owner).isEqualTo(before.get(roomId));
+            }
+        });
+        assertThat(shards.get("shard2").findAll()).isEmpty();
+        assertThat(repository.getShardNames()).containsExactly("shard0", "shard1", "shard3");
+        assertThat(repository.findAll()).hasSize(ROOMS);
+    }
+
+    @Test
+    void failedCopyLeavesRingAndNewShardUntouched() {
+        Map<String, String> before = owners();
+        InMemoryRoomRepository added = new InMemoryRoomRepository() {
+            private int saves;
+
+            @Override
+            public void save(Room room) {
+                if (++saves > 50) {
+                    throw new IllegalStateException("Sharden är full");
+                }
+                super.save(room);
+            }
+        };
+
+        assertThatThrownBy(() -> repository.addShard("shard4", added))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Sharden är full");
+
+        assertThat(added.findAll()).isEmpty();
+        assertThat(repository.getShardNames()).containsExactly("shard0", "shard1", "shard2", "shard3");
+        assertThat(owners()).isEqualTo(before);
+        assertThat(repository.findAll()).hasSize(ROOMS);
+    }
+
+    @Test
+    void roomsAreFoundAtNewOwnerEvenIfOriginalCannotBeDeleted() {
+        InMemoryRoomRepository stuck = new InMemoryRoomRepository() {
+            @Override
+            public void delete(String id) {
+                throw new IllegalStateException("Noden svarar inte");
+            }
+        };
+        shards.get("shard2").findAll().forEach(stuck::save);
+        Map<String, RoomRepository> withStuck = new LinkedHashMap<>(shards);
+        withStuck.put("shard2", stuck);
+        repository = new ShardedRoomRepository(withStuck);
+
+        assertThatThrownBy(() -> repository.removeShard("shard2"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Noden svarar inte");
+
+        assertThat(repository.getShardNames()).containsExactly("shard0", "shard1", "shard3");
+        for (int i = 0; i < ROOMS; i++) {
+            assertThat(repository.findById("room" + i)).isPresent();
+        }
+        assertThat(repository.findAll()).hasSize(ROOMS);
+    }
+
+    @Test
+    void backsBookingSystemAcrossShards() {
+        BookingSystem bookingSystem = new BookingSystem(() -> START.minusDays(1), repository,
+                mock(NotificationService.class));
+
+        assertThat(bookingSystem.bookRoom("room7", START, START.plusHours(1))).isTrue();
+        assertThat(bookingSystem.getAvailableRooms(START, START.plusHours(1))).hasSize(ROOMS - 1);
+        String bookingId = repository.findById("room7").orElseThrow().getBookings().iterator().next().getId();
+        assertThat(bookingSystem.cancelBooking(bookingId)).isTrue();
+    }
+
+    @Test
+    void rejectsInvalidShardChanges() {
+        assertThatThrownBy(() -> new ShardedRoomRepository(Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Måste ange minst en shard");
+        assertThatThrownBy(() -> repository.addShard("shard0", new InMemoryRoomRepository()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sharden finns redan: shard0");
+        assertThatThrownBy(() -> repository.removeShard("saknas"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sharden finns inte: saknas");
+    }
+
+    private Map<String, String> owners() {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < ROOMS; i++) {
+            owners.put("room" + i, repository.shardNameFor("room" + i));
+        }
+        return owners;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example;
 
+import com.example.pricing.PricingPlan;
+import com.example.pricing.PricingRule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 
@@ -68,6 +72,14 @@ public class ShoppingCartTest {
                 .hasMessage("Item cannot be null");
     }
 
+    @Test
+    @DisplayName("Should Report Zero Quantity For Null Item")
+    void shouldReportZeroQuantityForNullItem() {
+        cart.addItem(new Item("item1", 10.0));
+
+        assertThat(cart.getItemQuantity(null)).isZero();
+    }
+
     @Test
     @DisplayName("Should Apply Discount Correctly")
     void shouldApplyDiscountCorrectly() {
@@ -124,4 +136,82 @@ public class ShoppingCartTest {
 
         assertThat(cart.getItems()).doesNotContainKey(item); // Check if the key is removed
     }
+
+    @Test
+    @DisplayName("Should Keep Total In Sync With Quantity Changes")
+    void shouldKeepTotalInSyncWithQuantityChanges() {
+        Item item1 = new Item("item1", 0.1);
+        Item item2 = new Item("item2", 0.2);
+        for (int i = 0; i < 10; i++) {
+            cart.addItem(item1);
+        }
+        cart.addItem(item2);
+        cart.updateQuantity(item2, 3);
+        cart.removeItem(item1);
+
+        assertThat(cart.calculateTotalPrice()).isEqualTo(1.5);
+
+        cart.updateQuantity(item1, 0);
+
+        assertThat(cart.calculateTotalPrice()).isEqualTo(0.6);
+    }
+
+    @Test
+    @DisplayName("Should Keep Unit Price From When Line Was Created")
+    void shouldKeepUnitPriceFromWhenLineWasCreated() {
+        Item item = new Item("item1", 10.0);
+        cart.addItem(item);
+        item.setPrice(20.0);
+        cart.addItem(new Item("item1", 30.0));
+
+        assertThat(cart.calculateTotalPrice()).isEqualTo(20.0);
+
+        cart.updateQuantity(item, 0);
+        cart.addItem(item);
+
+        assertThat(cart.calculateTotalPrice()).isEqualTo(20.0);
+    }
+
+    @Test
+    @DisplayName("Should Apply Discount Without Changing Item Prices")
+    void shouldApplyDiscountWithoutChangingItemPrices() {
+        Item item = new Item("item1", 100.0);
+        cart.addItem(item);
+        cart.addItem(item);
+        cart.applyDiscount(0.5);
+        cart.applyDiscount(0.5);
+        cart.removeItem(item);
+
+        assertThat(item.getPrice()).isEqualTo(100.0);
+        assertThat(cart.getItemQuantity(item)).isEqualTo(1);
+        assertThat(cart.calculateTotalPrice()).isEqualTo(50.0);
+    }
+
+    @Test
+    @DisplayName("Should Price Cart With Compiled Rules")
+    void shouldPriceCartWithCompiledRules() {
+        Item pen = new Item("pen", 2.0);
+        Item paper = new Item("paper", 5.0);
+        cart.updateQuantity(pen, 7);
+        cart.updateQuantity(paper, 10);
+        PricingPlan plan = PricingPlan.compile(List.of(
+                PricingRule.buyXGetY("pen", 2, 1),
+                PricingRule.quantityTier("paper", 5, 0.1),
+                PricingRule.quantityTier("paper", 10, 0.2),
+                PricingRule.itemDiscount(null, 0.5),
+                PricingRule.cartDiscount(0.1, 20.0)));
+
+        // pen: 7 - 2 free = 5 * 2.00 * 0.5 = 5.00; paper: 10 * 5.00 * 0.8 * 0.5 = 20.00; cart: 25.00 * 0.9
+        assertThat(cart.calculateTotalPrice(plan)).isEqualTo(22.5);
+        assertThat(cart.calculateTotalPrice(PricingPlan.empty())).isEqualTo(64.0);
+        assertThat(pen.getPrice()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should Throw Exception For Invalid Discount Rate")
+    void shouldThrowExceptionForInvalidDiscountRate() {
+        assertThatThrownBy(() -> cart.applyDiscount(1.5))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Discount rate must be between 0 and 1");
+    }
 }
@@ -0,0 +1,148 @@
+package com.example;
+
+import com.example.payment.DatabaseService;
+import com.example.payment.PaymentRecord;
+import com.example.payment.WriteBehindDatabaseService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WriteBehindDatabaseServiceTest {
+
+    private final DatabaseService delegate = mock(DatabaseService.class);
+
+    @Test
+    void writesBatchOnceItIsFull() throws Exception {
+        try (WriteBehindDatabaseService service =
+                     new WriteBehindDatabaseService(delegate, 16, 3, Duration.ofHours(1), Duration.ZERO)) {
+            service.savePaymentAsync(1.0, "SUCCESS");
+            service.savePaymentAsync(2.0, "SUCCESS");
+            CompletableFuture<Void> written = service.savePaymentAsync(3.0, "SUCCESS");
+
+            written.get(5, TimeUnit.SECONDS);
+
+            ArgumentCaptor<List<PaymentRecord>> batch = ArgumentCaptor.captor();
+            verify(delegate).savePayments(batch.capture());
+            assertThat(batch.getValue()).extracting(PaymentRecord::getAmount).containsExactly(1.0, 2.0, 3.0);
+            assertThat(service.getWrittenCount()).isEqualTo(3);
+        }
+        verify(delegate, never()).savePayment(anyDouble(), anyString());
+    }
+
+    @Test
+    void writesPartialBatchAfterMaxDelay() throws Exception {
+        try (WriteBehindDatabaseService service =
+                     new WriteBehindDatabaseService(delegate, 16, 10, Duration.ofMillis(20), Duration.ZERO)) {
+            service.savePaymentAsync(1.0, "SUCCESS").get(5, TimeUnit.SECONDS);
+
+            verify(delegate).savePayments(anyList());
+            assertThat(service.getBufferedCount()).isZero();
+        }
+    }
+
+    @Test
+    void flushWritesEverythingBuffered() throws Exception {
+        try (WriteBehindDatabaseService service =
+                     new WriteBehindDatabaseService(delegate, 16, 10, Duration.ofHours(1), Duration.ZERO)) {
+            CompletableFuture<Void> first = service.savePaymentAsync(1.0, "SUCCESS");
+            service.savePaymentAsync(2.0, "SUCCESS");
+
+            service.flush().get(5, TimeUnit.SECONDS);
+
+            assertThat(first).isCompleted();
+            assertThat(service.getWrittenCount()).isEqualTo(2);
+            assertThat(service.getFlushCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void rejectsPaymentsWhenBufferStaysFull() throws Exception {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch releaseWrite = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writeStarted.countDown();
+            releaseWrite.await();
+            return null;
+        }).when(delegate).savePayments(anyList());
+
+        WriteBehindDatabaseService service =
+                new WriteBehindDatabaseService(delegate, 2, 1, Duration.ofHours(1), Duration.ofMillis(20));
+        service.savePaymentAsync(1.0, "SUCCESS");
+        assertThat(writeStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        service.savePaymentAsync(2.0, "SUCCESS");
+        service.savePaymentAsync(3.0, "SUCCESS");
+
+        assertThatThrownBy(() -> service.savePaymentAsync(4.0, "SUCCESS"))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessage("Write-behind buffer is full");
+        assertThat(service.getRejectedCount()).isEqualTo(1);
+
+        releaseWrite.countDown();
+        service.close();
+        assertThat(service.getWrittenCount()).isEqualTo(3);
+    }
+
+    @Test
+    void failsFutureWhenBatchCannotBeWritten() throws Exception {
+        doThrow(new IllegalStateException("Databasen är nere")).when(delegate).savePayments(anyList());
+
+        try (WriteBehindDatabaseService service =
+                     new WriteBehindDatabaseService(delegate, 16, 1, Duration.ofHours(1), Duration.ZERO)) {
+            CompletableFuture<Void> written = service.savePaymentAsync(1.0, "SUCCESS");
+
+            assertThatThrownBy(() -> written.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            assertThat(service.getFailedCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void savePaymentWaitsForItsBatchAndThrowsItsFailure() throws Exception {
+        doThrow(new IllegalStateException("Databasen är nere")).when(delegate).savePayments(anyList());
+
+        try (WriteBehindDatabaseService service =
+                     new WriteBehindDatabaseService(delegate, 16, 10, Duration.ofMillis(20), Duration.ZERO)) {
+            assertThatThrownBy(() -> service.savePayment(1.0, "SUCCESS"))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("Databasen är nere");
+            assertThatThrownBy(() -> service.savePayments(List.of(new PaymentRecord(2.0, "SUCCESS"))))
+                    .isInstanceOf(IllegalStateException.class);
+            assertThat(service.getFailedCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void savePaymentsReturnsOnceAllBatchesAreWritten() throws Exception {
+        try (WriteBehindDatabaseService service =
+                     new WriteBehindDatabaseService(delegate, 16, 2, Duration.ofMillis(20), Duration.ZERO)) {
+            service.savePayments(List.of(new PaymentRecord(1.0, "SUCCESS"), new PaymentRecord(2.0, "SUCCESS"),
+                    new PaymentRecord(3.0, "SUCCESS")));
+
+            verify(delegate, times(2)).savePayments(anyList());
+            assertThat(service.getWrittenCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void closeWritesRemainingPaymentsAndRejectsNewOnes() throws Exception {
+        WriteBehindDatabaseService service =
+                new WriteBehindDatabaseService(delegate, 16, 10, Duration.ofHours(1), Duration.ZERO);
+        service.savePaymentsAsync(List.of(new PaymentRecord(1.0, "SUCCESS"), new PaymentRecord(2.0, "SUCCESS")));
+
+        service.close();
+
+        verify(delegate).savePayments(anyList());
+        assertThat(service.getWrittenCount()).isEqualTo(2);
+        assertThatThrownBy(() -> service.savePayment(3.0, "SUCCESS"))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+}